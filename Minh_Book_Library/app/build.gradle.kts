@@ -1,5 +1,6 @@
 plugins {
     alias(libs.plugins.android.application)
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -14,6 +15,8 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        buildConfigField("String", "BOOKS_API_URL", "\"https://www.googleapis.com/books/v1/volumes\"")
     }
 
     buildTypes {
@@ -24,6 +27,28 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release build measured by :macrobenchmark against its local fake books server
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            buildConfigField("String", "BOOKS_API_URL", "\"http://127.0.0.1:8080/books/v1/volumes\"")
+        }
+    }
+    sourceSets {
+        // The baseline profile plugin profiles nonMinifiedBenchmark, its copy of the
+        // benchmark build type; it needs the same fake-server manifest
+        maybeCreate("nonMinifiedBenchmark").apply {
+            manifest.srcFile("src/benchmark/AndroidManifest.xml")
+            res.srcDirs("src/benchmark/res")
+        }
+    }
+    buildFeatures {
+        buildConfig = true
+    }
+    testOptions {
+        // Robolectric tests run against the merged manifest and resources
+        unitTests.isIncludeAndroidResources = true
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
@@ -37,11 +62,36 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.core.splashscreen)
+    // Installs the generated baseline profile (src/main/generated/baselineProfiles)
+    implementation(libs.profileinstaller)
+    baselineProfile(project(":macrobenchmark"))
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.mockwebserver)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 
     implementation ("com.google.android.material:material:1.10.0")
     implementation("com.android.volley:volley:1.2.1")
     implementation("com.github.bumptech.glide:glide:4.16.0")
-}
\ No newline at end of file
+    annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        isTransitive = false
+    }
+}
+
+// Release builds regenerate the profile into src/main/generated/baselineProfiles
+// (./gradlew :app:generateBaselineProfile does it on its own), which needs a
+// connected API 33+ (or rooted) device
+baselineProfile {
+    mergeIntoMain = true
+    saveInSrc = true
+    automaticGenerationDuringBuild = true
+}
+
+// The macrobenchmarks measure with BaselineProfileMode.Require, so the benchmark
+// build waits for a fresh profile too; they run on a connected device anyway
+tasks.matching { it.name == "preBenchmarkBuild" }.configureEach {
+    dependsOn("generateBaselineProfile")
+}
@@ -0,0 +1,126 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Debug;
+import android.util.Log;
+import android.widget.FrameLayout;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+// Allocations per onBindViewHolder while a fling binds row after row into a
+// few recycled holders, against the bind it replaced: row text concatenated,
+// the cover URL rewritten and a new click listener on every bind. Results go
+// to logcat under the tag below.
+@RunWith(AndroidJUnit4.class)
+public class BookAdapterBindAllocationTest {
+
+    private static final String TAG = "BookAdapterBind";
+    private static final int BOOKS = 400;
+    // Roughly the rows on screen plus the ones RecyclerView keeps for reuse
+    private static final int HOLDERS = 12;
+
+    private interface Bind {
+        void bind(BookAdapter.BookViewHolder holder, int position);
+    }
+
+    private final ArrayList<BookInfo> books = new ArrayList<>();
+    private BookAdapter adapter;
+    private final ArrayList<BookAdapter.BookViewHolder> holders = new ArrayList<>();
+
+    @Test
+    public void bindAllocatesLessThanTheOldBind() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            setUp(context);
+
+            long[] current = perBind((holder, position) -> adapter.bindViewHolder(holder, position));
+            long[] old = perBind((holder, position) -> oldBind(context, holder, books.get(position)));
+            Log.i(TAG, "Per bind: " + current[0] + " objects, " + current[1] + " bytes; old bind "
+                    + old[0] + " objects, " + old[1] + " bytes");
+            assertTrue("bind " + current[1] + " bytes, old bind " + old[1] + " bytes", current[1] < old[1]);
+        });
+    }
+
+    private void setUp(Context context) {
+        for (int i = 0; i < BOOKS; i++) {
+            BookInfo book = new BookInfo("Volume " + i, "Subtitle " + i,
+                    new ArrayList<>(Collections.singletonList("Author " + i)), "Publisher " + (i % 50),
+                    "2020-01-0" + (i % 9 + 1), "Description " + i, 100 + i,
+                    "http://127.0.0.1/books/content?id=v" + i, "", "", "");
+            book.setId("v" + i);
+            books.add(book);
+        }
+        adapter = new BookAdapter(context);
+        // The first list is applied right away, without a background diff
+        adapter.submitList(books);
+
+        RecyclerView parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+        parent.setLayoutParams(new FrameLayout.LayoutParams(1080, 1920));
+        for (int i = 0; i < HOLDERS; i++) {
+            holders.add(adapter.createViewHolder(parent, 0));
+        }
+    }
+
+    // Objects and bytes allocated on the main thread per bind, over one fling
+    // through the whole list after a warm-up fling
+    private long[] perBind(Bind bind) {
+        fling(bind);
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            Debug.resetThreadAllocSize();
+            fling(bind);
+            return new long[]{Debug.getThreadAllocCount() / BOOKS, Debug.getThreadAllocSize() / BOOKS};
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private void fling(Bind bind) {
+        for (int position = 0; position < BOOKS; position++) {
+            bind.bind(holders.get(position % HOLDERS), position);
+        }
+    }
+
+    // BookAdapter.onBindViewHolder before the row text and cover URL were prepared by BookInfo
+    private static void oldBind(Context context, BookAdapter.BookViewHolder holder, BookInfo bookInfo) {
+        holder.nameTV.setText(bookInfo.getTitle());
+        holder.publisherTV.setText(bookInfo.getPublisher());
+        holder.pageCountTV.setText("Pages : " + bookInfo.getPageCount());
+        holder.dateTV.setText("Published On : " + bookInfo.getPublishedDate());
+
+        String thumbnailUrl = bookInfo.getThumbnail();
+        if (thumbnailUrl != null && !thumbnailUrl.isEmpty() && thumbnailUrl.startsWith("http://")) {
+            thumbnailUrl = thumbnailUrl.replace("http://", "https://");
+        }
+        Glide.with(context)
+                .load(thumbnailUrl)
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .centerCrop()
+                .into(holder.bookIV);
+
+        holder.itemView.setOnClickListener(v -> {
+            int current = holder.getBindingAdapterPosition();
+            if (current == RecyclerView.NO_POSITION) return;
+            context.startActivity(new Intent(context, BookDetails.class)
+                    .putExtra("title", bookInfo.getTitle())
+                    .putExtra("description", bookInfo.getDescription()));
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Calls every BookDao path the screens use from the main thread with a StrictMode
+// policy that records disk reads and writes there. BookDao must keep all of them
+// on its own threads.
+@RunWith(AndroidJUnit4.class)
+public class BookDaoStrictModeTest {
+
+    private static final String DATABASE_NAME = "strict_mode_test.db";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+    private BookDao dao;
+    private final List<Violation> violations = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        // penaltyListener needs API 28
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        databaseHelper = new DatabaseHelper(context, DATABASE_NAME, true);
+        dao = new BookDao(databaseHelper);
+        DatabaseHelper.setCurrentUser("reader");
+    }
+
+    @After
+    public void tearDown() {
+        if (databaseHelper == null) return;
+        databaseHelper.close();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void daoNeverTouchesDiskOnTheMainThread() throws Exception {
+        BookInfo book = new BookInfo("Effective Java", "", new ArrayList<>(Collections.singletonList("Joshua Bloch")),
+                "Addison-Wesley", "2018", "Best practices", 412, "", "", "", "");
+        book.setId("ka2VUBqHiWkC");
+
+        assertTrue(onMainThread(callback -> dao.registerUser("reader", "secret", callback)));
+        assertTrue(onMainThread(callback -> dao.checkLogin("reader", "secret", callback)));
+        assertTrue(onMainThread(callback -> dao.saveBook(book, callback)));
+        assertTrue(onMainThread(callback -> dao.isBookSaved(book.getId(), book.getTitle(), callback)));
+        DatabaseHelper.SavedBooksPage page = onMainThread(callback -> dao.getSavedBooksAfter(-1, 20, callback));
+        assertEquals(1, page.books.size());
+        assertEquals(1, onMainThread((BookDao.Callback<ArrayList<BookInfo>> callback) ->
+                dao.searchSavedBooks("java", callback)).size());
+        assertTrue(onMainThread(callback -> dao.removeSavedBook(book.getId(), book.getTitle(), callback)));
+
+        assertEquals("Disk access on the main thread: " + violations, 0, violations.size());
+    }
+
+    private interface DaoCall<T> {
+        void start(BookDao.Callback<T> callback);
+    }
+
+    // Start call on the main thread under a recording StrictMode policy and wait for its result
+    private <T> T onMainThread(DaoCall<T> call) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<T> result = new AtomicReference<>();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            StrictMode.ThreadPolicy previous = StrictMode.getThreadPolicy();
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyListener(Runnable::run, violations::add)
+                    .build());
+            try {
+                call.start(value -> {
+                    result.set(value);
+                    done.countDown();
+                });
+            } finally {
+                StrictMode.setThreadPolicy(previous);
+            }
+        });
+        assertTrue("No result in time", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return result.get();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.TextView;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+// Launch latency of BookDetails for a book with a 50 KB description, opened by
+// its key against the eleven extras the adapter used to copy into the Intent.
+// Timings go to logcat under the tag below.
+@RunWith(AndroidJUnit4.class)
+public class BookDetailsLaunchBenchmarkTest {
+
+    private static final String TAG = "BookDetailsLaunch";
+    private static final int DESCRIPTION_CHARS = 50 * 1024;
+    private static final int RUNS = 11;
+
+    private Context context;
+    private BookInfo book;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        StringBuilder description = new StringBuilder(DESCRIPTION_CHARS);
+        while (description.length() < DESCRIPTION_CHARS) {
+            description.append("A very long description of a very long book. ");
+        }
+        book = new BookInfo("Launch latency", "Subtitle", new ArrayList<>(Collections.singletonList("Author")),
+                "Publisher", "2020", description.toString(), 320, "", "", "", "");
+        book.setId("launchLatency");
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                BookLibraryApp.getInstance().getBookRepository().put(book));
+    }
+
+    @Test
+    public void keyLaunchIsFasterThanCopyingTheBook() {
+        Intent byKey = new Intent(context, BookDetails.class)
+                .putExtra(BookDetails.EXTRA_BOOK_KEY, book.getKey());
+        // What BookAdapter sent before the repository, plus the key BookDetails now reads
+        Intent byExtras = new Intent(byKey)
+                .putExtra("title", book.getTitle())
+                .putExtra("subtitle", book.getSubtitle())
+                .putExtra("authors", book.getAuthors())
+                .putExtra("publisher", book.getPublisher())
+                .putExtra("publishedDate", book.getPublishedDate())
+                .putExtra("description", book.getDescription())
+                .putExtra("pageCount", book.getPageCount())
+                .putExtra("thumbnail", book.getThumbnail())
+                .putExtra("previewLink", book.getPreviewLink())
+                .putExtra("infoLink", book.getInfoLink())
+                .putExtra("buyLink", book.getBuyLink());
+
+        long key = median(byKey);
+        long extras = median(byExtras);
+        Log.i(TAG, DESCRIPTION_CHARS / 1024 + " KB description: by key " + key / 1000 +
+                " us, by extras " + extras / 1000 + " us");
+        assertTrue("key " + key + " ns, extras " + extras + " ns", key < extras);
+    }
+
+    private long median(Intent intent) {
+        launch(intent);
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            times[i] = launch(intent);
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    // Time until BookDetails is resumed with the book on screen. The book is in
+    // memory, so the repository answers during onCreate.
+    private long launch(Intent intent) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        try (ActivityScenario<BookDetails> scenario = ActivityScenario.launch(intent)) {
+            long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+            scenario.onActivity(activity -> assertEquals(book.getTitle(),
+                    ((TextView) activity.findViewById(R.id.bookTitle)).getText().toString()));
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Throughput of the saved-books queries while a writer keeps saving and removing
+// books, with write-ahead logging on and off. The numbers go to logcat under
+// the tag below; the test only fails if a thread errors or starves completely.
+@RunWith(AndroidJUnit4.class)
+public class DatabaseConcurrencyTest {
+
+    private static final String TAG = "DatabaseConcurrency";
+    private static final String DATABASE_NAME = "concurrency_test.db";
+    private static final int SEEDED_BOOKS = 2000;
+    private static final int PAGE_SIZE = 20;
+    private static final long RUN_MS = 3000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("reader");
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void readersKeepGoingWhileAWriterSaves() throws Exception {
+        Throughput rollback = run(false);
+        context.deleteDatabase(DATABASE_NAME);
+        Throughput wal = run(true);
+
+        Log.i(TAG, "rollback journal: " + rollback);
+        Log.i(TAG, "write-ahead log:  " + wal);
+        System.out.println("rollback journal: " + rollback + "\nwrite-ahead log:  " + wal);
+    }
+
+    private static class Throughput {
+        long reads;
+        long writes;
+
+        @Override
+        public String toString() {
+            return String.format("%.0f reads/s, %.0f writes/s", reads * 1000.0 / RUN_MS, writes * 1000.0 / RUN_MS);
+        }
+    }
+
+    // READER_THREADS readers page through the library and check saved state, like the
+    // screens do, while one writer saves and removes a book, like BookDao's writer
+    private Throughput run(boolean writeAheadLogging) throws Exception {
+        DatabaseHelper db = new DatabaseHelper(context, DATABASE_NAME, writeAheadLogging);
+        try {
+            seed(db);
+
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicLong reads = new AtomicLong();
+            AtomicLong writes = new AtomicLong();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> threads = new ArrayList<>();
+
+            for (int r = 0; r < BookDao.READER_THREADS; r++) {
+                threads.add(new Thread(() -> {
+                    long after = -1;
+                    while (!stop.get()) {
+                        DatabaseHelper.SavedBooksPage page = db.getSavedBooksAfter(after, PAGE_SIZE);
+                        after = page.books.size() < PAGE_SIZE ? -1 : page.lastRowId;
+                        db.isBookSaved("seed-" + (reads.get() % SEEDED_BOOKS), "");
+                        reads.addAndGet(2);
+                    }
+                }));
+            }
+            threads.add(new Thread(() -> {
+                for (int i = 0; !stop.get(); i++) {
+                    BookInfo book = book("written-" + i);
+                    db.saveBook(book);
+                    db.removeSavedBook(book.getId(), book.getTitle());
+                    writes.addAndGet(2);
+                }
+            }));
+
+            for (Thread thread : threads) {
+                thread.setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+                thread.start();
+            }
+            Thread.sleep(RUN_MS);
+            stop.set(true);
+            for (Thread thread : threads) thread.join();
+
+            if (failure.get() != null) throw new AssertionError(failure.get());
+            Throughput result = new Throughput();
+            result.reads = reads.get();
+            result.writes = writes.get();
+            assertTrue("Readers starved", result.reads > 0);
+            assertTrue("Writer starved", result.writes > 0);
+            assertEquals(SEEDED_BOOKS, db.getSavedBooksAfter(-1, SEEDED_BOOKS + 1).books.size());
+            return result;
+        } finally {
+            db.close();
+        }
+    }
+
+    // One transaction, so seeding does not pay a journal sync per book
+    private static void seed(DatabaseHelper db) {
+        SQLiteDatabase database = db.getWritableDatabase();
+        database.beginTransaction();
+        try {
+            for (int i = 0; i < SEEDED_BOOKS; i++) {
+                db.saveBook(book("seed-" + i));
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    private static BookInfo book(String id) {
+        BookInfo book = new BookInfo("Title " + id, "Subtitle", new ArrayList<>(Collections.singletonList("Author " + id)),
+                "Publisher", "2020", "Description of " + id, 300, "", "", "", "");
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Upgrades databases seeded with the v2 schema the app shipped with and checks
+// that every user and book survives, that the upgrade itself stays short, and
+// that the backfills left for after start-up finish the job.
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+
+    private static final String TAG = "DatabaseMigration";
+    private static final String DATABASE_NAME = "migration_test.db";
+    private static final String USER = "reader";
+    private static final int SMALL_LIBRARY = 1000;
+    private static final int LARGE_LIBRARY = 20_000;
+    // Time budget for opening an upgraded database, however big the library
+    private static final long MAX_UPGRADE_MS = 2000;
+    // Books whose title has a word no other book has
+    private static final int[] MARKED_BOOKS = {17, 999};
+    private static final long BACKFILL_TIMEOUT_MS = 60_000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser(USER);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void smallLibraryIsMigratedInline() {
+        seedV2(SMALL_LIBRARY);
+        DatabaseHelper helper = new DatabaseHelper(context, DATABASE_NAME, true);
+        try {
+            SQLiteDatabase db = upgrade(helper);
+
+            assertEquals(0, DatabaseUtils.queryNumEntries(db, DatabaseMigrations.TABLE_BACKFILLS));
+            assertLibraryPreserved(helper, SMALL_LIBRARY);
+            assertBackfilled(helper, SMALL_LIBRARY, MARKED_BOOKS.length);
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void largeLibraryDefersBackfillsAndStaysConsistent() {
+        seedV2(LARGE_LIBRARY);
+        DatabaseHelper helper = new DatabaseHelper(context, DATABASE_NAME, true);
+        try {
+            SQLiteDatabase db = upgrade(helper);
+
+            assertEquals(2, DatabaseUtils.queryNumEntries(db, DatabaseMigrations.TABLE_BACKFILLS));
+            assertLibraryPreserved(helper, LARGE_LIBRARY);
+
+            // Writes while the search index is still being built must not corrupt it
+            BookInfo added = book(LARGE_LIBRARY);
+            added.setId("added");
+            added.setTitle("Added yak");
+            assertTrue(helper.saveBook(added));
+            assertTrue(helper.removeSavedBook(null, "Title " + MARKED_BOOKS[0] + " zebra"));
+
+            long start = SystemClock.elapsedRealtime();
+            helper.runPendingBackfills();
+            Log.i(TAG, "Backfills for " + LARGE_LIBRARY + " books took " + (SystemClock.elapsedRealtime() - start) + " ms");
+
+            assertEquals(0, DatabaseUtils.queryNumEntries(db, DatabaseMigrations.TABLE_BACKFILLS));
+            assertBackfilled(helper, LARGE_LIBRARY, MARKED_BOOKS.length - 1);
+            assertEquals(1, helper.searchSavedBooks("yak").size());
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void savesRunBetweenBackfillChunks() throws InterruptedException {
+        seedV2(LARGE_LIBRARY);
+        DatabaseHelper helper = new DatabaseHelper(context, DATABASE_NAME, true);
+        try {
+            SQLiteDatabase db = upgrade(helper);
+            BookDao dao = new BookDao(helper);
+
+            // Queued behind the first chunk only, not behind the whole backfill
+            dao.runPendingBackfills();
+            BookInfo added = book(LARGE_LIBRARY);
+            added.setId("added");
+            added.setTitle("Added yak");
+            CountDownLatch saved = new CountDownLatch(1);
+            long[] pendingWhenSaved = new long[1];
+            dao.saveBook(added, result -> {
+                pendingWhenSaved[0] = DatabaseUtils.queryNumEntries(db, DatabaseMigrations.TABLE_BACKFILLS);
+                saved.countDown();
+            });
+            assertTrue("Save did not finish in time", saved.await(BACKFILL_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            assertTrue("Save waited for every backfill", pendingWhenSaved[0] > 0);
+
+            long deadline = SystemClock.elapsedRealtime() + BACKFILL_TIMEOUT_MS;
+            while (DatabaseUtils.queryNumEntries(db, DatabaseMigrations.TABLE_BACKFILLS) > 0) {
+                assertTrue("Backfills did not finish in time", SystemClock.elapsedRealtime() < deadline);
+                SystemClock.sleep(50);
+            }
+            assertBackfilled(helper, LARGE_LIBRARY + 1, MARKED_BOOKS.length);
+            assertEquals(1, helper.searchSavedBooks("yak").size());
+        } finally {
+            helper.close();
+        }
+    }
+
+    // Open the seeded file with the current helper, which runs onUpgrade
+    private SQLiteDatabase upgrade(DatabaseHelper helper) {
+        long start = SystemClock.elapsedRealtime();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        Log.i(TAG, "Upgrade of " + DatabaseUtils.queryNumEntries(db, DatabaseHelper.TABLE_BOOKS)
+                + " books took " + elapsed + " ms");
+
+        assertEquals(DatabaseHelper.DATABASE_VERSION, db.getVersion());
+        assertTrue("Upgrade took " + elapsed + " ms", elapsed <= MAX_UPGRADE_MS);
+        return db;
+    }
+
+    private void assertLibraryPreserved(DatabaseHelper helper, int books) {
+        assertTrue(helper.checkLogin(USER, "secret"));
+        assertTrue(helper.checkLogin("other", "hunter2"));
+        SQLiteDatabase db = helper.getReadableDatabase();
+        assertEquals(books, DatabaseUtils.queryNumEntries(db, DatabaseHelper.TABLE_BOOKS, "username=?",
+                new String[]{USER}));
+
+        Cursor cursor = db.rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_BOOKS + " WHERE title=?",
+                new String[]{"Title 42"});
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("Publisher 2", cursor.getString(cursor.getColumnIndexOrThrow("publisher")));
+            assertEquals("Writer 2,Author 42", cursor.getString(cursor.getColumnIndexOrThrow("authors")));
+            assertEquals(142, cursor.getInt(cursor.getColumnIndexOrThrow("pageCount")));
+            assertEquals("2042", cursor.getString(cursor.getColumnIndexOrThrow("publishedDate")));
+            assertTrue(cursor.isNull(cursor.getColumnIndexOrThrow("volume_id")));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void assertBackfilled(DatabaseHelper helper, int books, int markedBooks) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        // Every saved book has its author links...
+        assertEquals(0, DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_BOOKS +
+                " b WHERE NOT EXISTS (SELECT 1 FROM " + DatabaseHelper.TABLE_BOOK_AUTHORS +
+                " WHERE book_id = b.id)", null));
+        assertEquals(books / 100, helper.getBooksByAuthor("Author 42").size());
+        // ...and is found by the search index
+        assertEquals(markedBooks, helper.searchSavedBooks("zebra").size());
+        db.execSQL("INSERT INTO " + DatabaseHelper.TABLE_BOOKS_FTS + "(" + DatabaseHelper.TABLE_BOOKS_FTS +
+                ") VALUES('integrity-check')");
+    }
+
+    // The layout version 2 of the app created, filled in one transaction
+    private void seedV2(int books) {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(DATABASE_NAME), null);
+        try {
+            db.execSQL("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE, password TEXT)");
+            db.execSQL("CREATE TABLE saved_books (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT, title TEXT, " +
+                    "subtitle TEXT, authors TEXT, publisher TEXT, description TEXT, pageCount INTEGER, " +
+                    "thumbnail TEXT, previewLink TEXT, infoLink TEXT, publishedDate TEXT)");
+            db.beginTransaction();
+            try {
+                db.execSQL("INSERT INTO users (username, password) VALUES (?, ?)", new Object[]{USER, "secret"});
+                db.execSQL("INSERT INTO users (username, password) VALUES (?, ?)", new Object[]{"other", "hunter2"});
+                SQLiteStatement insert = db.compileStatement("INSERT INTO saved_books (username, title, subtitle, " +
+                        "authors, publisher, description, pageCount, thumbnail, previewLink, infoLink, publishedDate) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                for (int i = 0; i < books; i++) {
+                    BookInfo book = book(i);
+                    insert.bindString(1, USER);
+                    insert.bindString(2, book.getTitle());
+                    insert.bindString(3, book.getSubtitle());
+                    insert.bindString(4, String.join(",", book.getAuthors()));
+                    insert.bindString(5, book.getPublisher());
+                    insert.bindString(6, book.getDescription());
+                    insert.bindLong(7, book.getPageCount());
+                    insert.bindString(8, book.getThumbnail());
+                    insert.bindString(9, book.getPreviewLink());
+                    insert.bindString(10, book.getInfoLink());
+                    insert.bindString(11, book.getPublishedDate());
+                    insert.executeInsert();
+                }
+                insert.close();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.setVersion(2);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static BookInfo book(int i) {
+        boolean marked = Arrays.stream(MARKED_BOOKS).anyMatch(m -> m == i);
+        return new BookInfo("Title " + i + (marked ? " zebra" : ""), "Subtitle " + i,
+                new ArrayList<>(Arrays.asList("Writer " + (i % 10), "Author " + (i % 100))),
+                "Publisher " + (i % 10), "20" + String.format("%02d", i % 100), "Description of book " + i,
+                100 + i % 100, "http://books.example/" + i + ".jpg", "http://books.example/preview/" + i,
+                "http://books.example/info/" + i, "");
+    }
+}
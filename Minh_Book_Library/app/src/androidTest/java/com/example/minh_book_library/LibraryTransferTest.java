@@ -0,0 +1,123 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Export and import of a whole library: a round trip keeps every field, a
+// second import adds nothing, and the throughput of both goes to logcat.
+// Runs on a device because the schema needs the platform's FTS4 with unicode61.
+@RunWith(AndroidJUnit4.class)
+public class LibraryTransferTest {
+
+    private static final String TAG = "LibraryTransfer";
+    private static final String DATABASE_NAME = "transfer_test.db";
+    private static final int BOOKS = 5000;
+    // Every tenth book has no volume id, like books saved before v4
+    private static final int WITHOUT_ID_EVERY = 10;
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        helper = new DatabaseHelper(context, DATABASE_NAME, true);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void roundTripKeepsEveryBookAndReimportAddsNothing() throws IOException {
+        DatabaseHelper.setCurrentUser("exporter");
+        seed();
+
+        StringWriter out = new StringWriter();
+        long start = SystemClock.elapsedRealtime();
+        assertEquals(BOOKS, helper.exportSavedBooks(out, null));
+        logThroughput("Export", start);
+        String json = out.toString();
+
+        DatabaseHelper.setCurrentUser("importer");
+        start = SystemClock.elapsedRealtime();
+        assertEquals(BOOKS, helper.importSavedBooks(new StringReader(json), null));
+        logThroughput("Import", start);
+
+        ArrayList<BookInfo> imported = helper.getSavedBooksAfter(-1, BOOKS + 1).books;
+        assertEquals(BOOKS, imported.size());
+        for (int i = 0; i < BOOKS; i += 499) {
+            assertSameBook(book(i), imported.get(i));
+        }
+
+        // Books with and without a volume id are both recognised as already saved
+        assertEquals(0, helper.importSavedBooks(new StringReader(json), null));
+        DatabaseHelper.setCurrentUser("exporter");
+        assertEquals(0, helper.importSavedBooks(new StringReader(json), null));
+        assertEquals(BOOKS, helper.getSavedBooksAfter(-1, BOOKS + 1).books.size());
+    }
+
+    private void logThroughput(String what, long start) {
+        long elapsed = Math.max(1, SystemClock.elapsedRealtime() - start);
+        Log.i(TAG, what + " of " + BOOKS + " books: " + elapsed + " ms, " + BOOKS * 1000L / elapsed + " books/s");
+    }
+
+    private static void assertSameBook(BookInfo expected, BookInfo actual) {
+        assertEquals(expected.getId(), actual.getId() == null ? "" : actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getSubtitle(), actual.getSubtitle());
+        assertEquals(expected.getAuthors(), actual.getAuthors());
+        assertEquals(expected.getPublisher(), actual.getPublisher());
+        assertEquals(expected.getPublishedDate(), actual.getPublishedDate());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getPageCount(), actual.getPageCount());
+        assertEquals(expected.getThumbnail(), actual.getThumbnail());
+        assertEquals(expected.getPreviewLink(), actual.getPreviewLink());
+        assertEquals(expected.getInfoLink(), actual.getInfoLink());
+    }
+
+    private void seed() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < BOOKS; i++) {
+                helper.saveBook(book(i));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static BookInfo book(int i) {
+        BookInfo book = new BookInfo("Title " + i, "Subtitle " + i,
+                new ArrayList<>(Arrays.asList("Author " + (i % 300), "Editor " + (i % 7))), "Publisher " + (i % 40),
+                "2021-05-0" + (i % 9 + 1), "Description of book " + i, 100 + i % 400,
+                "https://books.example/" + i + ".jpg", "https://books.example/preview/" + i,
+                "https://books.example/info/" + i, "");
+        book.setId(i % WITHOUT_ID_EVERY == 0 ? "" : "vol" + i);
+        return book;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.minh_book_library;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.Espresso.openActionBarOverflowOrOptionsMenu;
+import static androidx.test.espresso.action.ViewActions.click;
+import static androidx.test.espresso.matcher.ViewMatchers.withText;
+import static org.junit.Assert.assertEquals;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+// The export and import actions are reachable from MainActivity's toolbar menu
+// and open the system file pickers. The pickers are stubbed by activity monitors.
+@RunWith(AndroidJUnit4.class)
+public class MainActivityMenuTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private Instrumentation instrumentation;
+    private ActivityScenario<MainActivity> scenario;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        DatabaseHelper.setCurrentUser("menu_test");
+        scenario = ActivityScenario.launch(MainActivity.class);
+    }
+
+    @After
+    public void tearDown() {
+        scenario.close();
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void exportOpensTheCreateDocumentPicker() throws Exception {
+        IntentFilter filter = new IntentFilter(Intent.ACTION_CREATE_DOCUMENT);
+        filter.addDataType("application/json");
+        assertPickerOpened(filter, "Xuất thư viện");
+    }
+
+    @Test
+    public void importOpensTheOpenDocumentPicker() throws Exception {
+        IntentFilter filter = new IntentFilter(Intent.ACTION_OPEN_DOCUMENT);
+        filter.addDataType("*/*");
+        assertPickerOpened(filter, "Nhập thư viện");
+    }
+
+    private void assertPickerOpened(IntentFilter filter, String menuTitle) {
+        // Answer the picker with "cancelled" instead of showing it
+        Instrumentation.ActivityMonitor picker = instrumentation.addMonitor(filter,
+                new Instrumentation.ActivityResult(Activity.RESULT_CANCELED, null), true);
+        try {
+            Context context = instrumentation.getTargetContext();
+            openActionBarOverflowOrOptionsMenu(context);
+            onView(withText(menuTitle)).perform(click());
+
+            instrumentation.waitForMonitorWithTimeout(picker, TIMEOUT_MS);
+            assertEquals(1, picker.getHits());
+        } finally {
+            instrumentation.removeMonitor(picker);
+        }
+    }
+}
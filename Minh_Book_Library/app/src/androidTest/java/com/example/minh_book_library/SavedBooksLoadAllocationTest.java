@@ -0,0 +1,137 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Allocations of loading 10k saved books page by page, with authors joined in
+// per page, against the single load that split the comma-joined authors of
+// every row. Results go to logcat under the tag below.
+@RunWith(AndroidJUnit4.class)
+public class SavedBooksLoadAllocationTest {
+
+    private static final String TAG = "SavedBooksLoad";
+    private static final String DATABASE_NAME = "load_allocation.db";
+    private static final String USER = "reader";
+    private static final int BOOKS = 10_000;
+
+    private interface Load {
+        int run();
+    }
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser(USER);
+        helper = new DatabaseHelper(context, DATABASE_NAME, true);
+        seed();
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void pagedLoadAllocatesLessThanSplittingAuthors() {
+        assertEquals(BOOKS, pagedLoad());
+        assertEquals(BOOKS, splitLoad());
+
+        long[] paged = measure(this::pagedLoad);
+        long[] split = measure(this::splitLoad);
+        Log.i(TAG, BOOKS + " books: paged " + paged[0] + " objects, " + paged[1] + " bytes; split "
+                + split[0] + " objects, " + split[1] + " bytes");
+        assertTrue("paged " + paged[1] + " bytes, split " + split[1] + " bytes", paged[1] < split[1]);
+    }
+
+    // Objects and bytes allocated on this thread by one load, after a warm-up load
+    private static long[] measure(Load load) {
+        load.run();
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            Debug.resetThreadAllocSize();
+            load.run();
+            return new long[]{Debug.getThreadAllocCount(), Debug.getThreadAllocSize()};
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    // What SavedBooksPager reads: keyset pages, authors attached with one query per page
+    private int pagedLoad() {
+        int loaded = 0;
+        long afterRowId = 0;
+        while (true) {
+            DatabaseHelper.SavedBooksPage page = helper.getSavedBooksAfter(afterRowId, SavedBooksPager.PAGE_SIZE);
+            if (page.books.isEmpty()) return loaded;
+            loaded += page.books.size();
+            afterRowId = page.lastRowId;
+        }
+    }
+
+    // The getSavedBooks load before the author tables: every row at once, column
+    // positions looked up per row and the authors string split per row
+    private int splitLoad() {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_BOOKS +
+                " WHERE username=?", new String[]{USER});
+        ArrayList<BookInfo> books = new ArrayList<>();
+        try {
+            while (cursor.moveToNext()) {
+                String authorsStr = cursor.getString(cursor.getColumnIndexOrThrow("authors"));
+                ArrayList<String> authors = new ArrayList<>(Arrays.asList(authorsStr.split(",")));
+                books.add(new BookInfo(cursor.getString(cursor.getColumnIndexOrThrow("title")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("subtitle")), authors,
+                        cursor.getString(cursor.getColumnIndexOrThrow("publisher")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("publishedDate")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("description")),
+                        cursor.getInt(cursor.getColumnIndexOrThrow("pageCount")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("thumbnail")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("previewLink")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("infoLink")), ""));
+            }
+        } finally {
+            cursor.close();
+        }
+        return books.size();
+    }
+
+    private void seed() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < BOOKS; i++) {
+                BookInfo book = new BookInfo("Volume " + i, "Subtitle " + i,
+                        new ArrayList<>(Arrays.asList("Author " + (i % 500), "Co-author " + (i % 70))),
+                        "Publisher " + (i % 50), "2020", "Description of book number " + i, 200, "", "", "", "");
+                book.setId("v" + i);
+                helper.saveBook(book);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+// Saved-state checks and deep paging of a 100k-book library, each against the
+// query it replaced. Timings go to logcat under the tag below.
+@RunWith(AndroidJUnit4.class)
+public class SavedBooksLookupBenchmarkTest {
+
+    private static final String TAG = "SavedBooksLookup";
+    private static final String DATABASE_NAME = "lookup_benchmark.db";
+    private static final String USER = "reader";
+    private static final int BOOKS = 100_000;
+    private static final int PAGE_SIZE = 50;
+    // Near the end of the library, where OFFSET has to step over almost every row
+    private static final int DEEP_OFFSET = 95_000;
+    private static final int RUNS = 15;
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser(USER);
+        helper = new DatabaseHelper(context, DATABASE_NAME, true);
+        seed();
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void indexedSavedCheckIsFasterThanATableScan() {
+        String volumeId = "v" + (BOOKS - 1);
+        String title = "Volume " + (BOOKS - 1);
+        assertTrue(helper.isBookSaved(volumeId, title));
+        assertFalse(helper.isBookSaved("missing", "Missing"));
+        assertEquals(1, scanCount(title));
+
+        long indexed = median(() -> helper.isBookSaved(volumeId, title));
+        long scan = median(() -> scanCount(title));
+        Log.i(TAG, BOOKS + " books: saved check " + indexed / 1000 + " us, table scan " + scan / 1000 + " us");
+        assertTrue("indexed " + indexed + " ns, scan " + scan + " ns", indexed < scan);
+    }
+
+    @Test
+    public void keysetPageIsFasterThanOffsetAtDepth() {
+        // Rows are inserted in order, so the row before position DEEP_OFFSET has id DEEP_OFFSET
+        long afterRowId = firstRowId() + DEEP_OFFSET - 1;
+        DatabaseHelper.SavedBooksPage page = helper.getSavedBooksAfter(afterRowId, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, page.books.size());
+        assertEquals("Volume " + DEEP_OFFSET, page.books.get(0).getTitle());
+        assertEquals(PAGE_SIZE, offsetPage(DEEP_OFFSET));
+
+        long keyset = median(() -> keysetPage(afterRowId));
+        long offset = median(() -> offsetPage(DEEP_OFFSET));
+        Log.i(TAG, BOOKS + " books, page at " + DEEP_OFFSET + ": keyset " + keyset / 1000 +
+                " us, OFFSET " + offset / 1000 + " us");
+        assertTrue("keyset " + keyset + " ns, OFFSET " + offset + " ns", keyset < offset);
+    }
+
+    // The check before the schema change: every matching row, without the title index
+    private int scanCount(String title) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_BOOKS +
+                " NOT INDEXED WHERE username=? AND title=?", new String[]{USER, title});
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // The same seek getSavedBooksAfter runs, read the same way as offsetPage
+    private int keysetPage(long afterRowId) {
+        return countRows("SELECT * FROM " + DatabaseHelper.TABLE_BOOKS +
+                " WHERE username=? AND id>? ORDER BY id ASC LIMIT " + PAGE_SIZE, String.valueOf(afterRowId));
+    }
+
+    // The page query before keyset pagination
+    private int offsetPage(int offset) {
+        return countRows("SELECT * FROM " + DatabaseHelper.TABLE_BOOKS +
+                " WHERE username=? ORDER BY id ASC LIMIT " + PAGE_SIZE + " OFFSET " + offset, null);
+    }
+
+    private int countRows(String sql, String rowId) {
+        String[] args = rowId == null ? new String[]{USER} : new String[]{USER, rowId};
+        Cursor cursor = helper.getReadableDatabase().rawQuery(sql, args);
+        try {
+            int count = 0;
+            while (cursor.moveToNext()) count++;
+            return count;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long firstRowId() {
+        return helper.getSavedBooksAfter(0, 1).firstRowId;
+    }
+
+    private static long median(Runnable lookup) {
+        lookup.run();
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            lookup.run();
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private void seed() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < BOOKS; i++) {
+                BookInfo book = new BookInfo("Volume " + i, "Subtitle " + i,
+                        new ArrayList<>(Collections.singletonList("Author " + (i % 500))), "Publisher " + (i % 50),
+                        "2020", "Description of book number " + i, 200, "", "", "", "");
+                book.setId("v" + i);
+                helper.saveBook(book);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
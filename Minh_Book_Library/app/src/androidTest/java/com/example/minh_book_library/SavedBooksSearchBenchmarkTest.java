@@ -0,0 +1,115 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+// Full-text search of the saved library against the LIKE '%word%' scan it
+// replaced, on a large library. Timings go to logcat under the tag below.
+@RunWith(AndroidJUnit4.class)
+public class SavedBooksSearchBenchmarkTest {
+
+    private static final String TAG = "SavedBooksSearch";
+    private static final String DATABASE_NAME = "search_benchmark.db";
+    private static final String USER = "reader";
+    private static final int BOOKS = 50_000;
+    // Every 1000th book is about cafés
+    private static final int MATCH_EVERY = 1000;
+    private static final int RUNS = 15;
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser(USER);
+        helper = new DatabaseHelper(context, DATABASE_NAME, true);
+        seed();
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DATABASE_NAME);
+        DatabaseHelper.setCurrentUser("");
+    }
+
+    @Test
+    public void ftsFindsAccentedWordsFasterThanALikeScan() {
+        // unicode61 folds the accent: "cafe" matches "Café"
+        assertEquals(BOOKS / MATCH_EVERY, helper.searchSavedBooks("cafe").size());
+        assertEquals(BOOKS / MATCH_EVERY, helper.searchSavedBooks("CAFÉ").size());
+        assertEquals(BOOKS / MATCH_EVERY, likeScan("Café"));
+
+        long fts = median(() -> helper.searchSavedBooks("cafe"));
+        long like = median(() -> likeScan("Café"));
+        Log.i(TAG, BOOKS + " books: FTS " + fts / 1000 + " us, LIKE scan " + like / 1000 + " us");
+        assertTrue("FTS " + fts + " ns, LIKE " + like + " ns", fts < like);
+    }
+
+    // The search before the index: every column of every book of the user
+    private int likeScan(String word) {
+        String pattern = "%" + word + "%";
+        SQLiteDatabase db = helper.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_BOOKS + " WHERE username=? AND " +
+                        "(title LIKE ? OR subtitle LIKE ? OR authors LIKE ? OR publisher LIKE ? OR description LIKE ?)",
+                new String[]{USER, pattern, pattern, pattern, pattern, pattern});
+        try {
+            int count = 0;
+            while (cursor.moveToNext()) count++;
+            return count;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long median(Runnable search) {
+        search.run();
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            search.run();
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private void seed() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < BOOKS; i++) {
+                String title = i % MATCH_EVERY == 0 ? "Café society " + i : "Volume " + i;
+                BookInfo book = new BookInfo(title, "Subtitle " + i,
+                        new ArrayList<>(Collections.singletonList("Author " + (i % 500))), "Publisher " + (i % 50),
+                        "2020", "A long description of book number " + i + " and what happens in it", 200,
+                        "", "", "", "");
+                book.setId("v" + i);
+                helper.saveBook(book);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.minh_book_library;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.RetryPolicy;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import java.util.Random;
+
+// Retry rules for the books API. Volley calls retry() on its network thread and
+// tries again right away, so the policy itself never waits: it allows one quick
+// retry with a longer timeout for timeouts, lost connections and 5xx. Rate
+// limiting (429) and anything with a Retry-After header are left to
+// BooksRequestCoalescer, which retries later with nextDelayMs() off the network
+// threads.
+public class BackoffRetryPolicy implements RetryPolicy {
+
+    public static final int DEFAULT_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_MAX_RETRIES = 1;
+    public static final long BASE_DELAY_MS = 500;
+    public static final long MAX_DELAY_MS = 8000;
+
+    private static final Random random = new Random();
+
+    private final int maxRetries;
+
+    private int currentTimeoutMs;
+    private int currentRetryCount = 0;
+
+    public BackoffRetryPolicy() {
+        this(DEFAULT_TIMEOUT_MS, DEFAULT_MAX_RETRIES);
+    }
+
+    public BackoffRetryPolicy(int timeoutMs, int maxRetries) {
+        this.currentTimeoutMs = timeoutMs;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public int getCurrentTimeout() {
+        return currentTimeoutMs;
+    }
+
+    @Override
+    public int getCurrentRetryCount() {
+        return currentRetryCount;
+    }
+
+    @Override
+    public void retry(VolleyError error) throws VolleyError {
+        if (currentRetryCount >= maxRetries || !isRetryable(error)) {
+            throw error;
+        }
+        // The server asked us to slow down, retrying at once would only make it worse
+        if (isRateLimited(error) || retryAfterMs(error) >= 0) {
+            throw error;
+        }
+        currentRetryCount++;
+        currentTimeoutMs *= 2;
+    }
+
+    // Timeouts, dropped connections, rate limiting and server errors are worth another try
+    public static boolean isRetryable(VolleyError error) {
+        if (error instanceof TimeoutError || error instanceof NoConnectionError) return true;
+        NetworkResponse response = error.networkResponse;
+        return response != null && (response.statusCode == 429 || response.statusCode >= 500);
+    }
+
+    static boolean isRateLimited(VolleyError error) {
+        return error.networkResponse != null && error.networkResponse.statusCode == 429;
+    }
+
+    // How long to wait before delayed retry number attempt (0-based): the server's
+    // Retry-After if it sent one, otherwise full jitter, a random wait between 0 and
+    // base * 2^attempt, capped. -1 when the server wants more than MAX_DELAY_MS.
+    public static long nextDelayMs(VolleyError error, int attempt) {
+        long delay = retryAfterMs(error);
+        if (delay >= 0) return delay > MAX_DELAY_MS ? -1 : delay;
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt, 16));
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    // Delay requested by a Retry-After header (seconds or HTTP date), -1 if there is none
+    public static long retryAfterMs(VolleyError error) {
+        NetworkResponse response = error.networkResponse;
+        if (response == null || response.headers == null) return -1;
+        String value = response.headers.get("Retry-After");
+        if (value == null) return -1;
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            long date = HttpHeaderParser.parseDateAsEpoch(value);
+            return date > 0 ? Math.max(0, date - System.currentTimeMillis()) : -1;
+        }
+    }
+}
@@ -9,22 +9,90 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Lists are handed over with submitList(); the differences to the list on
+// screen are computed on a background thread and only changed rows rebind
+public class BookAdapter extends ListAdapter<BookInfo, BookAdapter.BookViewHolder>
+        implements ListPreloader.PreloadModelProvider<BookInfo> {
+
+    // Covers fetched ahead of the scroll, in rows
+    public static final int PRELOAD_ROWS = 6;
+
+    // Same book = same volume id; same content = nothing a row shows has changed
+    static final DiffUtil.ItemCallback<BookInfo> DIFF_CALLBACK = new DiffUtil.ItemCallback<BookInfo>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull BookInfo oldBook, @NonNull BookInfo newBook) {
+            return oldBook.getKey().equals(newBook.getKey());
+        }
 
-import java.util.ArrayList;
+        @Override
+        public boolean areContentsTheSame(@NonNull BookInfo oldBook, @NonNull BookInfo newBook) {
+            return Objects.equals(oldBook.getTitle(), newBook.getTitle())
+                    && Objects.equals(oldBook.getPublisher(), newBook.getPublisher())
+                    && oldBook.getPageCount() == newBook.getPageCount()
+                    && Objects.equals(oldBook.getPublishedDate(), newBook.getPublishedDate())
+                    && Objects.equals(oldBook.getThumbnail(), newBook.getThumbnail());
+        }
+    };
 
-public class BookAdapter extends RecyclerView.Adapter<BookAdapter.BookViewHolder> {
+    // Rows inflated by all book lists since start, to check that view holders get reused
+    private static int createdViewHolders = 0;
 
-    private final ArrayList<BookInfo> bookInfoArrayList;
     private final Context context;
+    private final RequestManager glide;
+
+    // One listener for every row of every book list; the row's holder is kept in
+    // its tag. Rows move between adapters through the shared view pool, so the
+    // adapter that bound the row is asked, not the one that created it.
+    private static final View.OnClickListener ROW_CLICK_LISTENER = row -> {
+        BookViewHolder holder = (BookViewHolder) row.getTag();
+        RecyclerView.Adapter<?> adapter = holder.getBindingAdapter();
+        if (adapter instanceof BookAdapter) {
+            ((BookAdapter) adapter).openBookDetails(holder.getBindingAdapterPosition());
+        }
+    };
 
-    // Constructor to initialize adapter with data
-    public BookAdapter(ArrayList<BookInfo> bookInfoArrayList, Context context) {
-        this.bookInfoArrayList = bookInfoArrayList;
+    public static int getCreatedViewHolderCount() {
+        return createdViewHolders;
+    }
+
+    public BookAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
+        this.glide = Glide.with(context);
+    }
+
+    // Scroll listener that loads the covers of the next rows into the memory cache
+    public RecyclerViewPreloader<BookInfo> newPreloader() {
+        return new RecyclerViewPreloader<>(glide, this,
+                new FixedPreloadSizeProvider<>(BookCovers.width(context), BookCovers.height(context)), PRELOAD_ROWS);
+    }
+
+    @NonNull
+    @Override
+    public List<BookInfo> getPreloadItems(int position) {
+        // The list may have been swapped for another adapter's rows
+        if (position >= getItemCount()) return Collections.emptyList();
+        return Collections.singletonList(getItem(position));
+    }
+
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull BookInfo book) {
+        return BookCovers.listCover(glide, context, book.getCoverUrl());
     }
 
     @NonNull
@@ -32,64 +100,52 @@ public class BookAdapter extends RecyclerView.Adapter<BookAdapter.BookViewHolder
     public BookViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         // Inflate layout for each RecyclerView item
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.book_rv_item, parent, false);
-        return new BookViewHolder(view);
+        createdViewHolders++;
+        BookViewHolder holder = new BookViewHolder(view);
+        view.setTag(holder);
+        view.setOnClickListener(ROW_CLICK_LISTENER);
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull BookViewHolder holder, int position) {
         // Get current book info
-        BookInfo bookInfo = bookInfoArrayList.get(position);
+        BookInfo bookInfo = getItem(position);
 
-        // Set data to UI components
+        // Set data to UI components (row text is prepared by BookInfo)
         holder.nameTV.setText(bookInfo.getTitle());
         holder.publisherTV.setText(bookInfo.getPublisher());
-        holder.pageCountTV.setText("Pages : " + bookInfo.getPageCount());
-        holder.dateTV.setText("Published On : " + bookInfo.getPublishedDate());
-
-        // Load image from URL using Glide
-        String thumbnailUrl = bookInfo.getThumbnail();
-
-        // Convert HTTP to HTTPS if needed for security
-        if (thumbnailUrl != null && !thumbnailUrl.isEmpty() && thumbnailUrl.startsWith("http://")) {
-            thumbnailUrl = thumbnailUrl.replace("http://", "https://");
-        }
-
-        // Load image with Glide - simple configuration
-        Glide.with(context)
-                .load(thumbnailUrl)
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .centerCrop()
+        holder.pageCountTV.setText(bookInfo.getPageCountText());
+        holder.dateTV.setText(bookInfo.getPublishedDateText());
+
+        // Same request as the preloader, so a preloaded cover comes from memory
+        holder.coverListener.start();
+        BookCovers.listCover(glide, context, bookInfo.getCoverUrl())
+                .placeholder(R.color.grey)
+                .listener(holder.coverListener)
                 .into(holder.bookIV);
-
-        // Set click listener to open BookDetails activity with data
-        holder.itemView.setOnClickListener(v -> {
-            Intent intent = new Intent(context, BookDetails.class);
-            intent.putExtra("title", bookInfo.getTitle());
-            intent.putExtra("subtitle", bookInfo.getSubtitle());
-            intent.putExtra("authors", bookInfo.getAuthors());
-            intent.putExtra("publisher", bookInfo.getPublisher());
-            intent.putExtra("publishedDate", bookInfo.getPublishedDate());
-            intent.putExtra("description", bookInfo.getDescription());
-            intent.putExtra("pageCount", bookInfo.getPageCount());
-            intent.putExtra("thumbnail", bookInfo.getThumbnail());
-            intent.putExtra("previewLink", bookInfo.getPreviewLink());
-            intent.putExtra("infoLink", bookInfo.getInfoLink());
-            intent.putExtra("buyLink", bookInfo.getBuyLink());
-
-            // Start new activity with intent
-            context.startActivity(intent);
-        });
     }
 
-    @Override
-    public int getItemCount() {
-        return bookInfoArrayList.size();
+    // Open BookDetails for the clicked row. The row may have been kept for an
+    // equal-looking newer copy of the book, so read the current one.
+    private void openBookDetails(int position) {
+        if (position == RecyclerView.NO_POSITION || position >= getItemCount()) return;
+        BookInfo book = getItem(position);
+
+        // Only the key goes through the Intent, BookDetails gets the book from the repository
+        BookLibraryApp.getInstance().getBookRepository().put(book);
+        Intent intent = new Intent(context, BookDetails.class);
+        intent.putExtra(BookDetails.EXTRA_BOOK_KEY, book.getKey());
+
+        // Start new activity with intent
+        context.startActivity(intent);
     }
 
     // ViewHolder class to hold UI elements for each item
     public static class BookViewHolder extends RecyclerView.ViewHolder {
         TextView nameTV, publisherTV, pageCountTV, dateTV;
         ImageView bookIV;
+        final BookCovers.LoadListener coverListener = new BookCovers.LoadListener();
 
         public BookViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -0,0 +1,207 @@
+package com.example.minh_book_library;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Asynchronous access to DatabaseHelper. Writes go through a single writer
+// thread so they never race each other, reads use a small pool, and every
+// result is handed back on the main thread.
+public class BookDao {
+
+    private static final String TAG = "BookDao";
+
+    public static final int READER_THREADS = 2;
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private final DatabaseHelper db;
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService readExecutor = Executors.newFixedThreadPool(READER_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // First page of saved books read ahead on a cold start with a remembered
+    // session, handed to the first getSavedBooksAfter(-1, ...) that asks for it
+    private Future<DatabaseHelper.SavedBooksPage> warmFirstPage;
+    private String warmUser;
+    private int warmLimit;
+
+    public BookDao(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    // Saved books
+
+    public void getSavedBooksAfter(long afterRowId, int limit,
+                                   Callback<DatabaseHelper.SavedBooksPage> callback) {
+        Future<DatabaseHelper.SavedBooksPage> warm = afterRowId == -1 ? takeWarmFirstPage(limit) : null;
+        if (warm != null) {
+            read(() -> {
+                try {
+                    return warm.get();
+                } catch (ExecutionException | InterruptedException e) {
+                    return db.getSavedBooksAfter(afterRowId, limit);
+                }
+            }, emptyPage(), callback);
+            return;
+        }
+        read(() -> db.getSavedBooksAfter(afterRowId, limit), emptyPage(), callback);
+    }
+
+    // Start reading the current user's first page of saved books before any screen asks for it
+    public synchronized Future<DatabaseHelper.SavedBooksPage> prewarmSavedBooks(int limit) {
+        warmUser = DatabaseHelper.getCurrentUser();
+        warmLimit = limit;
+        warmFirstPage = readExecutor.submit(() -> db.getSavedBooksAfter(-1, limit));
+        return warmFirstPage;
+    }
+
+    private synchronized Future<DatabaseHelper.SavedBooksPage> takeWarmFirstPage(int limit) {
+        Future<DatabaseHelper.SavedBooksPage> warm = warmFirstPage;
+        warmFirstPage = null;
+        if (warm == null || limit != warmLimit || !DatabaseHelper.getCurrentUser().equals(warmUser)) return null;
+        return warm;
+    }
+
+    public void getSavedBooksBefore(long beforeRowId, int limit,
+                                    Callback<DatabaseHelper.SavedBooksPage> callback) {
+        read(() -> db.getSavedBooksBefore(beforeRowId, limit), emptyPage(), callback);
+    }
+
+    public void getSavedBook(String key, Callback<BookInfo> callback) {
+        read(() -> db.getSavedBook(key), null, callback);
+    }
+
+    public void searchSavedBooks(String query, Callback<ArrayList<BookInfo>> callback) {
+        read(() -> db.searchSavedBooks(query), new ArrayList<>(), callback);
+    }
+
+    public void getBooksByAuthor(String author, Callback<ArrayList<BookInfo>> callback) {
+        read(() -> db.getBooksByAuthor(author), new ArrayList<>(), callback);
+    }
+
+    public void isBookSaved(String volumeId, String title, Callback<Boolean> callback) {
+        read(() -> db.isBookSaved(volumeId, title), false, callback);
+    }
+
+    public void saveBook(BookInfo bookInfo, Callback<Boolean> callback) {
+        write(() -> db.saveBook(bookInfo), false, callback);
+    }
+
+    public void removeSavedBook(String volumeId, String title, Callback<Boolean> callback) {
+        write(() -> db.removeSavedBook(volumeId, title), false, callback);
+    }
+
+    // Write the saved library to a document as JSON; the result is the number of
+    // books exported, or -1 if the file could not be written
+    public void exportLibrary(ContentResolver resolver, Uri uri,
+                              Callback<Integer> progress, Callback<Integer> callback) {
+        read(() -> {
+            try (OutputStream os = resolver.openOutputStream(uri);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+                return db.exportSavedBooks(out, done -> deliver(done, progress));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Export failed: " + e.getMessage());
+                return -1;
+            }
+        }, -1, callback);
+    }
+
+    // Add the books of an exported JSON document to the library; the result is the
+    // number of books imported, or -1 if the file could not be read
+    public void importLibrary(ContentResolver resolver, Uri uri,
+                              Callback<Integer> progress, Callback<Integer> callback) {
+        write(() -> {
+            try (InputStream is = resolver.openInputStream(uri);
+                 Reader in = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                return db.importSavedBooks(in, done -> deliver(done, progress));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Import failed: " + e.getMessage());
+                return -1;
+            }
+        }, -1, callback);
+    }
+
+    // Finish schema backfills left by an upgrade, on the writer thread so they
+    // are ordered with the user's own saves. Each chunk is its own writer task
+    // and the next one queues behind the saves that arrived meanwhile.
+    public void runPendingBackfills() {
+        writeExecutor.execute(() -> {
+            boolean more;
+            try {
+                more = db.runNextBackfillChunk();
+            } catch (RuntimeException e) {
+                // The chunk was rolled back, the backfill carries on from there on the next start
+                Log.e(TAG, "Backfill failed", e);
+                return;
+            }
+            if (more) runPendingBackfills();
+        });
+    }
+
+    // Users
+
+    public void checkLogin(String username, String password, Callback<Boolean> callback) {
+        read(() -> db.checkLogin(username, password), false, callback);
+    }
+
+    public void registerUser(String username, String password, Callback<Boolean> callback) {
+        write(() -> db.registerUser(username, password), false, callback);
+    }
+
+    // If work throws, failed is handed to the callback instead
+    private <T> void read(Supplier<T> work, T failed, Callback<T> callback) {
+        readExecutor.execute(() -> deliver(run(work, failed), callback));
+    }
+
+    private <T> void write(Supplier<T> work, T failed, Callback<T> callback) {
+        // The library is about to change, a read-ahead page would be stale
+        synchronized (this) {
+            warmFirstPage = null;
+        }
+        writeExecutor.execute(() -> deliver(run(work, failed), callback));
+    }
+
+    // A failed query (full disk, corrupt file...) is logged and reported to the
+    // caller; left uncaught it would kill the app from the executor thread and
+    // the callback would never run
+    private static <T> T run(Supplier<T> work, T failed) {
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Database task failed", e);
+            return failed;
+        }
+    }
+
+    private static DatabaseHelper.SavedBooksPage emptyPage() {
+        return new DatabaseHelper.SavedBooksPage(new ArrayList<>(), -1, -1);
+    }
+
+    private <T> void deliver(T result, Callback<T> callback) {
+        if (callback != null) {
+            mainHandler.post(() -> callback.onResult(result));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.example.minh_book_library;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -17,26 +19,30 @@ import androidx.core.view.WindowInsetsCompat;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 
-import java.util.ArrayList;
-
 public class BookDetails extends AppCompatActivity {
 
-    // Declaring variables for book details
-    private String title, subtitle, publisher, publishedDate, description, thumbnail, previewLink, infoLink;
-    private int pageCount;
-    private ArrayList<String> authors;
+    private static final String TAG = "BookDetails";
+
+    // BookInfo.getKey() of the book to show, looked up in the BookRepository
+    public static final String EXTRA_BOOK_KEY = "book_key";
+
+    // The book shown, null until the repository returns it
+    private BookInfo book;
 
     // UI components
     private TextView titleTV, subtitleTV, publisherTV, descTV, pageTV, publishDateTV;
     private Button previewBtn, saveBtn;
     private ImageView bookIV;
 
-    // Database helper
-    private DatabaseHelper db;
+    // Database access (off the UI thread)
+    private BookDao dao;
+    private BookRepository repository;
+    private boolean isSaved = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        long createdAt = SystemClock.elapsedRealtime();
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_book_details);
 
@@ -46,8 +52,9 @@ public class BookDetails extends AppCompatActivity {
             return insets;
         });
 
-        // Initialize database helper
-        db = new DatabaseHelper(this);
+        // Initialize database access
+        dao = BookLibraryApp.getInstance().getBookDao();
+        repository = BookLibraryApp.getInstance().getBookRepository();
 
         // Initializing views
         titleTV = findViewById(R.id.bookTitle);
@@ -62,43 +69,27 @@ public class BookDetails extends AppCompatActivity {
 
         // Change button text from "Buy" to "Save"
         saveBtn.setText("Lưu sách");
+        saveBtn.setEnabled(false);
 
-        // Getting data passed from the adapter class
-        Intent intent = getIntent();
-        title = intent.getStringExtra("title");
-        subtitle = intent.getStringExtra("subtitle");
-        publisher = intent.getStringExtra("publisher");
-        publishedDate = intent.getStringExtra("publishedDate");
-        description = intent.getStringExtra("description");
-        pageCount = intent.getIntExtra("pageCount", 0);
-        thumbnail = intent.getStringExtra("thumbnail");
-        previewLink = intent.getStringExtra("previewLink");
-        infoLink = intent.getStringExtra("infoLink");
-
-        // Create authors ArrayList from the passed string array
-        authors = intent.getStringArrayListExtra("authors");
-        if (authors == null) {
-            authors = new ArrayList<>();
-        }
-
-        // Setting data to UI components
-        titleTV.setText(title);
-        subtitleTV.setText(subtitle);
-        publisherTV.setText(publisher);
-        publishDateTV.setText("Published On : " + publishedDate);
-        descTV.setText(description);
-        pageTV.setText("Pages : " + pageCount);
-
-        // Load book image
-        loadBookImage();
-
-        // Check if book is already saved and update button text
-        if (db.isBookSaved(title)) {
-            saveBtn.setText("Bỏ lưu");
+        // Memory first; after process death the book comes from the database or the API
+        String key = getIntent().getStringExtra(EXTRA_BOOK_KEY);
+        if (key == null) {
+            finish();
+            return;
         }
+        repository.get(key, this, found -> {
+            if (found == null) {
+                Toast.makeText(BookDetails.this, "Không tìm thấy sách", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            showBook(found);
+            Log.d(TAG, "Book shown " + (SystemClock.elapsedRealtime() - createdAt) + " ms after onCreate");
+        });
 
         // Adding click listener for preview button
         previewBtn.setOnClickListener(v -> {
+            String previewLink = book != null ? book.getPreviewLink() : null;
             if (previewLink == null || previewLink.isEmpty()) {
                 Toast.makeText(BookDetails.this, "No preview link present", Toast.LENGTH_SHORT).show();
                 return;
@@ -109,44 +100,75 @@ public class BookDetails extends AppCompatActivity {
 
         // Adding click listener for save button
         saveBtn.setOnClickListener(v -> {
-            if (db.isBookSaved(title)) {
+            // Ignore taps until the current save/remove has finished
+            saveBtn.setEnabled(false);
+            if (isSaved) {
                 // Remove book if already saved
-                if (db.removeSavedBook(title)) {
-                    Toast.makeText(BookDetails.this, "Sách đã dược bỏ lưu", Toast.LENGTH_SHORT).show();
-                    saveBtn.setText("Lưu sách");
-                } else {
-                    Toast.makeText(BookDetails.this, "Bỏ lưu sách thất bại", Toast.LENGTH_SHORT).show();
-                }
+                dao.removeSavedBook(book.getId(), book.getTitle(), removed -> {
+                    saveBtn.setEnabled(true);
+                    if (removed) {
+                        isSaved = false;
+                        Toast.makeText(BookDetails.this, "Sách đã dược bỏ lưu", Toast.LENGTH_SHORT).show();
+                        saveBtn.setText("Lưu sách");
+                    } else {
+                        Toast.makeText(BookDetails.this, "Bỏ lưu sách thất bại", Toast.LENGTH_SHORT).show();
+                    }
+                });
             } else {
                 // Save book
-                BookInfo bookInfo = new BookInfo(
-                        title, subtitle, authors, publisher, publishedDate,
-                        description, pageCount, thumbnail, previewLink, infoLink, ""
-                );
-
-                if (db.saveBook(bookInfo)) {
-                    Toast.makeText(BookDetails.this, "Sách đã dược lưu", Toast.LENGTH_SHORT).show();
-                    saveBtn.setText("Bỏ lưu");
-                } else {
-                    Toast.makeText(BookDetails.this, "Lưu sách thất bại", Toast.LENGTH_SHORT).show();
-                }
+                dao.saveBook(book, saved -> {
+                    saveBtn.setEnabled(true);
+                    if (saved) {
+                        isSaved = true;
+                        Toast.makeText(BookDetails.this, "Sách đã dược lưu", Toast.LENGTH_SHORT).show();
+                        saveBtn.setText("Bỏ lưu");
+                    } else {
+                        Toast.makeText(BookDetails.this, "Lưu sách thất bại", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         });
     }
 
-    private void loadBookImage() {
-        String imageUrl = thumbnail;
+    @Override
+    protected void onDestroy() {
+        // Stop waiting for a volume fetched from the API
+        repository.cancel(this);
+        super.onDestroy();
+    }
 
-        // Convert HTTP to HTTPS if needed for security
-        if (imageUrl != null && !imageUrl.isEmpty() && imageUrl.startsWith("http://")) {
-            imageUrl = imageUrl.replace("http://", "https://");
-        }
+    private void showBook(BookInfo found) {
+        book = found;
+
+        // Setting data to UI components
+        titleTV.setText(book.getTitle());
+        subtitleTV.setText(book.getSubtitle());
+        publisherTV.setText(book.getPublisher());
+        publishDateTV.setText(book.getPublishedDateText());
+        descTV.setText(book.getDescription());
+        pageTV.setText(book.getPageCountText());
+
+        // Load book image
+        loadBookImage();
+
+        // Check if book is already saved and update button text
+        dao.isBookSaved(book.getId(), book.getTitle(), saved -> {
+            isSaved = saved;
+            saveBtn.setText(saved ? "Bỏ lưu" : "Lưu sách");
+            saveBtn.setEnabled(true);
+        });
+    }
+
+    private void loadBookImage() {
+        String imageUrl = book.getCoverUrl();
 
-        // Load image with Glide - simple configuration
+        // Full quality cover; the list's cached cover is shown while it loads
         Glide.with(this)
                 .load(imageUrl)
                 .diskCacheStrategy(DiskCacheStrategy.ALL)
                 .centerCrop()
+                .placeholder(R.color.grey)
+                .thumbnail(BookCovers.listCover(Glide.with(this), this, imageUrl))
                 .into(bookIV);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.example.minh_book_library;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+
+// App-wide Glide settings: cache sizes tuned for lists of small book covers
+@GlideModule
+public final class BookGlideModule extends AppGlideModule {
+
+    public static final String COVER_CACHE_DIR = "book_covers";
+    public static final long COVER_CACHE_SIZE_BYTES = 100L * 1024 * 1024;
+    // Decoded covers kept in memory, in screens worth of bitmaps (Glide's default is 2)
+    public static final float MEMORY_CACHE_SCREENS = 3;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, COVER_CACHE_DIR, COVER_CACHE_SIZE_BYTES));
+    }
+
+    // No Glide modules are declared in the manifest, skip scanning it
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -16,6 +16,16 @@ public class BookInfo {
     private String previewLink;
     private String infoLink;
     private String buyLink;
+    // Google Books volume id (empty for books saved before ids were stored)
+    private String id = "";
+
+    // Row text and cover URL, built once when the book is parsed or read (off the
+    // UI thread) instead of on every bind
+    private String pageCountText;
+    private String publishedDateText;
+    private String coverUrl;
+    // Only the fields a list row shows, e.g. restored from saved instance state
+    private boolean summary = false;
 
     // creating getter and setter methods
     public String getTitle() {
@@ -56,6 +66,7 @@ public class BookInfo {
 
     public void setPublishedDate(String publishedDate) {
         this.publishedDate = publishedDate;
+        this.publishedDateText = "Published On : " + publishedDate;
     }
 
     public String getDescription() {
@@ -72,6 +83,7 @@ public class BookInfo {
 
     public void setPageCount(int pageCount) {
         this.pageCount = pageCount;
+        this.pageCountText = "Pages : " + pageCount;
     }
 
     public String getThumbnail() {
@@ -80,6 +92,7 @@ public class BookInfo {
 
     public void setThumbnail(String thumbnail) {
         this.thumbnail = thumbnail;
+        this.coverUrl = toHttps(thumbnail);
     }
 
     public String getPreviewLink() {
@@ -106,6 +119,50 @@ public class BookInfo {
         this.buyLink = buyLink;
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPageCountText() {
+        return pageCountText;
+    }
+
+    public String getPublishedDateText() {
+        return publishedDateText;
+    }
+
+    // Thumbnail URL to load, https whenever the books API is
+    public String getCoverUrl() {
+        return coverUrl;
+    }
+
+    // Google returns http thumbnail links, load them over https. The benchmark
+    // build's fake server only speaks http, so its covers are left alone.
+    private static String toHttps(String url) {
+        if (url != null && url.startsWith("http://") && BooksRequest.BASE_URL.startsWith("https://")) {
+            return "https://" + url.substring("http://".length());
+        }
+        return url;
+    }
+
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
+    // Identifies the book in lists: volume id when we have one, otherwise title + publisher
+    public String getKey() {
+        if (id != null && !id.isEmpty()) return id;
+        return title + "|" + publisher;
+    }
+
     // creating a constructor class for our BookInfo
     public BookInfo(String title, String subtitle, ArrayList<String> authors, String publisher,
                     String publishedDate, String description, int pageCount, String thumbnail,
@@ -121,5 +178,8 @@ public class BookInfo {
         this.previewLink = previewLink;
         this.infoLink = infoLink;
         this.buyLink = buyLink;
+        this.pageCountText = "Pages : " + pageCount;
+        this.publishedDateText = "Published On : " + publishedDate;
+        this.coverUrl = toHttps(thumbnail);
     }
 }
@@ -0,0 +1,145 @@
+package com.example.minh_book_library;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+import com.android.volley.Cache;
+import com.android.volley.Network;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.ClearCacheRequest;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HurlStack;
+
+import java.io.File;
+
+public class BookLibraryApp extends Application {
+
+    // Volley disk cache settings (size can be changed here)
+    public static final String HTTP_CACHE_DIR = "volley_books";
+    public static final int HTTP_CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+    public static final String SEARCH_CACHE_DIR = "search_results";
+
+    private static BookLibraryApp instance;
+
+    // Single request queue shared by the whole app
+    private RequestQueue requestQueue;
+    // The queue's network, counting the bytes of every download
+    private ByteCountingNetwork network;
+    // The one helper for Library.db, so the file is opened once for the whole process
+    private DatabaseHelper databaseHelper;
+    // Asynchronous access to the library database
+    private BookDao bookDao;
+    // Guards the books API once it keeps failing
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    // Joins identical in-flight book searches into one network call
+    private BooksRequestCoalescer booksRequestCoalescer;
+    // Parsed search pages, shared by every screen that searches
+    private SearchResultCache searchResultCache;
+    // The remembered login
+    private SessionStore sessionStore;
+    // Books passed between screens by key
+    private BookRepository bookRepository;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        instance = this;
+
+        // In debug builds, log every disk access made on the UI thread, starting
+        // with the session read below
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+        }
+
+        // Restore the login before any activity is created, including one restored
+        // after process death (the splash warm-up reads the first saved page ahead)
+        sessionStore = new SessionStore(this);
+        sessionStore.restore();
+    }
+
+    public synchronized DatabaseHelper getDatabaseHelper() {
+        if (databaseHelper == null) {
+            databaseHelper = new DatabaseHelper(this);
+        }
+        return databaseHelper;
+    }
+
+    public synchronized BookDao getBookDao() {
+        if (bookDao == null) {
+            bookDao = new BookDao(getDatabaseHelper());
+            bookDao.runPendingBackfills();
+        }
+        return bookDao;
+    }
+
+    public synchronized BookRepository getBookRepository() {
+        if (bookRepository == null) {
+            bookRepository = new BookRepository(getBookDao(), getBooksRequestCoalescer());
+        }
+        return bookRepository;
+    }
+
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    public static BookLibraryApp getInstance() {
+        return instance;
+    }
+
+    // Lazily create the shared queue so launches that never search don't pay for it
+    public synchronized RequestQueue getRequestQueue() {
+        if (requestQueue == null) {
+            network = new ByteCountingNetwork(new BasicNetwork(new HurlStack()));
+            requestQueue = newRequestQueue(new File(getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE_BYTES, network);
+        }
+        return requestQueue;
+    }
+
+    // Bytes downloaded since start, on the wire and decompressed
+    public synchronized ByteCountingNetwork getNetwork() {
+        getRequestQueue();
+        return network;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public synchronized BooksRequestCoalescer getBooksRequestCoalescer() {
+        if (booksRequestCoalescer == null) {
+            booksRequestCoalescer = new BooksRequestCoalescer(getRequestQueue(), circuitBreaker);
+        }
+        return booksRequestCoalescer;
+    }
+
+    public synchronized SearchResultCache getSearchResultCache() {
+        if (searchResultCache == null) {
+            searchResultCache = new SearchResultCache(new File(getCacheDir(), SEARCH_CACHE_DIR));
+        }
+        return searchResultCache;
+    }
+
+    // Build a queue backed by a persistent DiskBasedCache of the given size
+    static RequestQueue newRequestQueue(File cacheDir, int cacheSizeBytes, Network network) {
+        Cache cache = new DiskBasedCache(cacheDir, cacheSizeBytes);
+        RequestQueue queue = new RequestQueue(cache, network);
+        queue.start();
+        return queue;
+    }
+
+    // Wipe every cached response and search page, on the queue's cache thread and
+    // the search cache's disk thread. Done on sign-out, so the next user of the
+    // device doesn't get the previous one's searches.
+    public void clearCache() {
+        RequestQueue queue = getRequestQueue();
+        queue.add(new ClearCacheRequest(queue.getCache(), null));
+        getSearchResultCache().clear();
+    }
+}
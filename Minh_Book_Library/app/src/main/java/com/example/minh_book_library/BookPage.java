@@ -0,0 +1,23 @@
+package com.example.minh_book_library;
+
+import java.util.ArrayList;
+
+// One page of a Google Books volumes response
+public class BookPage {
+
+    private final int totalItems;
+    private final ArrayList<BookInfo> books;
+
+    public BookPage(int totalItems, ArrayList<BookInfo> books) {
+        this.totalItems = totalItems;
+        this.books = books;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public ArrayList<BookInfo> getBooks() {
+        return books;
+    }
+}
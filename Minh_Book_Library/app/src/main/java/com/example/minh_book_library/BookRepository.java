@@ -0,0 +1,76 @@
+package com.example.minh_book_library;
+
+import android.util.LruCache;
+
+import java.util.HashMap;
+
+// In-process home of the books the user is looking at, so screens hand each
+// other a book key (BookInfo.getKey()) instead of the whole book.
+// Lookup order: memory, then the user's saved books, then Google Books.
+// Used from the main thread only.
+public class BookRepository {
+
+    public static final int MAX_BOOKS = 200;
+
+    private final LruCache<String, BookInfo> books = new LruCache<>(MAX_BOOKS);
+    private final BookDao dao;
+    private final BooksRequestCoalescer coalescer;
+    // Tags with lookups still in flight, and how many
+    private final HashMap<Object, Integer> waiting = new HashMap<>();
+
+    public BookRepository(BookDao dao, BooksRequestCoalescer coalescer) {
+        this.dao = dao;
+        this.coalescer = coalescer;
+    }
+
+    public void put(BookInfo book) {
+        // A summary lacks the description etc., let get() load the full book instead
+        if (book.isSummary()) return;
+        books.put(book.getKey(), book);
+    }
+
+    // The book for key, or null if it can't be found anywhere. Not called back once
+    // cancel(tag) has run, e.g. after the screen asking for it is destroyed.
+    public void get(String key, Object tag, BookDao.Callback<BookInfo> callback) {
+        BookInfo cached = books.get(key);
+        if (cached != null) {
+            callback.onResult(cached);
+            return;
+        }
+        Integer count = waiting.get(tag);
+        waiting.put(tag, count == null ? 1 : count + 1);
+        dao.getSavedBook(key, saved -> {
+            if (!waiting.containsKey(tag)) return;
+            if (saved != null) {
+                put(saved);
+                deliver(tag, callback, saved);
+            } else if (key.contains("|")) {
+                // Not a volume id, there is nothing to ask the API for
+                deliver(tag, callback, null);
+            } else {
+                coalescer.fetch(BooksRequest.volumeUrl(key), tag, page -> {
+                    BookInfo book = page.getBooks().isEmpty() ? null : page.getBooks().get(0);
+                    if (book != null) put(book);
+                    deliver(tag, callback, book);
+                }, error -> deliver(tag, callback, null));
+            }
+        });
+    }
+
+    public void cancel(Object tag) {
+        // The database lookup can't be stopped, forgetting the tag drops its result
+        waiting.remove(tag);
+        coalescer.cancelAll(tag);
+    }
+
+    private void deliver(Object tag, BookDao.Callback<BookInfo> callback, BookInfo book) {
+        Integer count = waiting.get(tag);
+        if (count == null) return;
+        if (count == 1) {
+            waiting.remove(tag);
+        } else {
+            waiting.put(tag, count - 1);
+        }
+        callback.onResult(book);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.minh_book_library;
+
+import android.net.Uri;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// Volley request for the Google Books volumes endpoint. The response bytes are
+// parsed with a streaming JsonReader in parseNetworkResponse, which Volley runs
+// on its network thread, so the UI thread only receives ready BookInfo objects.
+public class BooksRequest extends Request<BookPage> {
+
+    // Google Books, or the fake server of the benchmark build
+    public static final String BASE_URL = BuildConfig.BOOKS_API_URL;
+    // Partial response: only the fields readPage() below actually reads
+    public static final String FIELDS = "totalItems,items(id,volumeInfo(title,subtitle,authors,publisher," +
+            "publishedDate,description,pageCount,imageLinks(thumbnail,smallThumbnail),previewLink,infoLink))";
+
+    // Same projection for a single volume
+    public static final String VOLUME_FIELDS = "id,volumeInfo(title,subtitle,authors,publisher," +
+            "publishedDate,description,pageCount,imageLinks(thumbnail,smallThumbnail),previewLink,infoLink)";
+
+    private final Response.Listener<BookPage> listener;
+
+    public BooksRequest(String url, Response.Listener<BookPage> listener,
+                        Response.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        this.listener = listener;
+        // Volley only hands 5xx and dropped connections to the retry policy when asked to
+        setShouldRetryServerErrors(true);
+        setShouldRetryConnectionErrors(true);
+    }
+
+    // Build the URL for one page of a search; the query is URL-encoded
+    public static String searchUrl(String query, int startIndex, int maxResults) {
+        return Uri.parse(BASE_URL).buildUpon()
+                .appendQueryParameter("q", query)
+                .appendQueryParameter("startIndex", String.valueOf(startIndex))
+                .appendQueryParameter("maxResults", String.valueOf(maxResults))
+                .appendQueryParameter("fields", FIELDS)
+                .build()
+                .toString();
+    }
+
+    // URL of one volume by its id; the response is parsed as a page with that one book
+    public static String volumeUrl(String volumeId) {
+        return Uri.parse(BASE_URL).buildUpon()
+                .appendPath(volumeId)
+                .appendQueryParameter("fields", VOLUME_FIELDS)
+                .build()
+                .toString();
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        // Asking for gzip ourselves turns off HttpURLConnection's transparent
+        // decompression, so ByteCountingNetwork sees the real wire size. Google APIs only
+        // gzip when the User-Agent also contains "gzip".
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip");
+        headers.put("User-Agent", "Minh_Book_Library (gzip)");
+        return headers;
+    }
+
+    @Override
+    protected Response<BookPage> parseNetworkResponse(NetworkResponse response) {
+        try {
+            String charset = HttpHeaderParser.parseCharset(response.headers, "UTF-8");
+            InputStream body = new ByteArrayInputStream(response.data);
+            // Volley's header map ignores case
+            String encoding = response.headers != null ? response.headers.get("Content-Encoding") : null;
+            if ("gzip".equalsIgnoreCase(encoding)) {
+                body = new GZIPInputStream(body);
+            }
+
+            JsonReader reader = new JsonReader(new InputStreamReader(body, charset));
+            try {
+                BookPage page = readPage(reader);
+                return Response.success(page, HttpHeaderParser.parseCacheHeaders(response));
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    @Override
+    protected void deliverResponse(BookPage response) {
+        listener.onResponse(response);
+    }
+
+    // Top level object: { "totalItems": n, "items": [ ... ] } for a search,
+    // or a single item { "id": "...", "volumeInfo": { ... } } for volumeUrl()
+    static BookPage readPage(JsonReader reader) throws IOException {
+        int totalItems = 0;
+        ArrayList<BookInfo> books = new ArrayList<>();
+        String volumeId = "";
+        BookInfo volume = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("totalItems")) {
+                totalItems = reader.nextInt();
+            } else if (name.equals("items") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    BookInfo book = readItem(reader);
+                    if (book != null) books.add(book);
+                }
+                reader.endArray();
+            } else if (name.equals("id")) {
+                volumeId = reader.nextString();
+            } else if (name.equals("volumeInfo")) {
+                volume = readVolumeInfo(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (volume != null) {
+            volume.setId(volumeId);
+            books.add(volume);
+            totalItems = 1;
+        }
+        return new BookPage(totalItems, books);
+    }
+
+    // One item: { "id": "...", "volumeInfo": { ... }, ... }
+    private static BookInfo readItem(JsonReader reader) throws IOException {
+        String id = "";
+        BookInfo book = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("id")) {
+                id = reader.nextString();
+            } else if (name.equals("volumeInfo")) {
+                book = readVolumeInfo(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (book != null) book.setId(id);
+        return book;
+    }
+
+    // Only the fields BookInfo uses are read, everything else is skipped
+    private static BookInfo readVolumeInfo(JsonReader reader) throws IOException {
+        // Same default values the old org.json parser used
+        String title = "Unknown Title";
+        String subtitle = "";
+        ArrayList<String> authors = new ArrayList<>();
+        String publisher = "Unknown Publisher";
+        String publishedDate = "Unknown Date";
+        String description = "No description available";
+        int pageCount = 0;
+        String thumbnail = "";
+        String smallThumbnail = "";
+        String previewLink = "";
+        String infoLink = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "subtitle":
+                    subtitle = reader.nextString();
+                    break;
+                case "authors":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        authors.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                case "publisher":
+                    publisher = reader.nextString();
+                    break;
+                case "publishedDate":
+                    publishedDate = reader.nextString();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "pageCount":
+                    pageCount = reader.nextInt();
+                    break;
+                case "imageLinks":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String link = reader.nextName();
+                        if (link.equals("thumbnail")) {
+                            thumbnail = reader.nextString();
+                        } else if (link.equals("smallThumbnail")) {
+                            smallThumbnail = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "previewLink":
+                    previewLink = reader.nextString();
+                    break;
+                case "infoLink":
+                    infoLink = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (authors.isEmpty()) {
+            authors.add("Unknown Author");
+        }
+        // Try to get the best quality image available
+        if (thumbnail.isEmpty()) {
+            thumbnail = smallThumbnail;
+        }
+
+        return new BookInfo(title, subtitle, authors, publisher, publishedDate,
+                description, pageCount, thumbnail, previewLink, infoLink, "");
+    }
+}
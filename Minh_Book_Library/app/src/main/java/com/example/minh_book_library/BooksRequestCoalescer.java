@@ -0,0 +1,148 @@
+package com.example.minh_book_library;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Makes sure only one BooksRequest per URL is on the network at a time.
+// Later callers for the same URL are attached to the pending request and all
+// of them receive the single parsed result. Everything runs on the main thread.
+// Failed requests that are worth retrying are sent again after a backoff delay
+// (see BackoffRetryPolicy.nextDelayMs) posted to the main looper, so no Volley
+// thread ever sleeps.
+public class BooksRequestCoalescer {
+
+    // Delayed retries per call on top of the policy's immediate one
+    static final int MAX_DELAYED_RETRIES = 3;
+
+    // One caller waiting for a URL
+    private static class Caller {
+        final Object tag;
+        final Response.Listener<BookPage> listener;
+        final Response.ErrorListener errorListener;
+
+        Caller(Object tag, Response.Listener<BookPage> listener, Response.ErrorListener errorListener) {
+            this.tag = tag;
+            this.listener = listener;
+            this.errorListener = errorListener;
+        }
+    }
+
+    // The network request for a URL and everyone waiting for it
+    private static class PendingCall {
+        BooksRequest request;
+        final List<Caller> callers = new ArrayList<>();
+        int retries = 0;
+        Runnable scheduledRetry;
+        // What CircuitBreaker.acquire() answered for this call
+        int permit;
+    }
+
+    private final RequestQueue requestQueue;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<String, PendingCall> pending = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private long networkRequests = 0;
+    private long coalescedRequests = 0;
+
+    public BooksRequestCoalescer(RequestQueue requestQueue, CircuitBreaker circuitBreaker) {
+        this.requestQueue = requestQueue;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    // Fetch url, joining an identical request that is already in flight
+    public void fetch(String url, Object tag, Response.Listener<BookPage> listener,
+                      Response.ErrorListener errorListener) {
+        Caller caller = new Caller(tag, listener, errorListener);
+        PendingCall call = pending.get(url);
+        if (call != null) {
+            coalescedRequests++;
+            call.callers.add(caller);
+            return;
+        }
+
+        // The API keeps failing, answer right away so callers fall back to cached/offline results
+        int permit = circuitBreaker.acquire();
+        if (permit == CircuitBreaker.REFUSED) {
+            errorListener.onErrorResponse(new CircuitBreaker.OpenError());
+            return;
+        }
+
+        PendingCall newCall = new PendingCall();
+        newCall.permit = permit;
+        newCall.callers.add(caller);
+        pending.put(url, newCall);
+        send(url, newCall);
+    }
+
+    private void send(String url, PendingCall call) {
+        call.scheduledRetry = null;
+        call.request = new BooksRequest(url,
+                page -> {
+                    pending.remove(url);
+                    circuitBreaker.recordSuccess();
+                    for (Caller c : new ArrayList<>(call.callers)) c.listener.onResponse(page);
+                },
+                error -> {
+                    if (BackoffRetryPolicy.isRetryable(error)) {
+                        long delay = call.retries < MAX_DELAYED_RETRIES
+                                ? BackoffRetryPolicy.nextDelayMs(error, call.retries) : -1;
+                        if (delay >= 0) {
+                            call.retries++;
+                            call.scheduledRetry = () -> send(url, call);
+                            mainHandler.postDelayed(call.scheduledRetry, delay);
+                            return;
+                        }
+                        circuitBreaker.recordFailure(BackoffRetryPolicy.retryAfterMs(error));
+                    } else {
+                        // The server answered (e.g. 400), it is not down
+                        circuitBreaker.recordSuccess();
+                    }
+                    pending.remove(url);
+                    for (Caller c : new ArrayList<>(call.callers)) c.errorListener.onErrorResponse(error);
+                });
+        call.request.setTag(this);
+        call.request.setRetryPolicy(new BackoffRetryPolicy());
+        networkRequests++;
+        requestQueue.add(call.request);
+    }
+
+    // Stop delivering to callers with this tag. The network request itself is
+    // cancelled only when nobody else is waiting for it.
+    public void cancelAll(Object tag) {
+        Iterator<Map.Entry<String, PendingCall>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            PendingCall call = it.next().getValue();
+            removeCallers(call, tag);
+            if (call.callers.isEmpty()) {
+                if (call.scheduledRetry != null) mainHandler.removeCallbacks(call.scheduledRetry);
+                call.request.cancel();
+                circuitBreaker.recordCancelled(call.permit);
+                it.remove();
+            }
+        }
+    }
+
+    public long getNetworkRequestCount() {
+        return networkRequests;
+    }
+
+    public long getCoalescedRequestCount() {
+        return coalescedRequests;
+    }
+
+    private static void removeCallers(PendingCall call, Object tag) {
+        Iterator<Caller> it = call.callers.iterator();
+        while (it.hasNext()) {
+            if (it.next().tag.equals(tag)) it.remove();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.minh_book_library;
+
+import android.util.Log;
+
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Volley Network that records how many bytes every response took on the wire
+// and after gunzip. Only real downloads pass through here: cache hits are
+// answered by Volley's cache thread, and a 304 carries the cached body, so
+// neither is counted.
+public class ByteCountingNetwork implements Network {
+
+    private static final String TAG = "ByteCountingNetwork";
+
+    private final Network network;
+
+    // Totals for all responses since start
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong decompressedBytes = new AtomicLong();
+
+    public ByteCountingNetwork(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+        try {
+            NetworkResponse response = network.performRequest(request);
+            record(request, response);
+            return response;
+        } catch (VolleyError error) {
+            // Error pages (e.g. a 503) were downloaded as well
+            record(request, error.networkResponse);
+            throw error;
+        }
+    }
+
+    public long getResponseCount() {
+        return responses.get();
+    }
+
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public long getDecompressedBytes() {
+        return decompressedBytes.get();
+    }
+
+    private void record(Request<?> request, NetworkResponse response) {
+        if (response == null || response.notModified || response.data == null) return;
+        long wire = response.data.length;
+        // Volley's header map ignores case
+        String encoding = response.headers != null ? response.headers.get("Content-Encoding") : null;
+        long decompressed = "gzip".equalsIgnoreCase(encoding) ? gzipSize(response.data) : wire;
+
+        responses.incrementAndGet();
+        wireBytes.addAndGet(wire);
+        decompressedBytes.addAndGet(decompressed);
+        Log.d(TAG, wire + " bytes on the wire, " + decompressed + " decompressed: " + request.getUrl());
+    }
+
+    // A gzip stream ends with the uncompressed size mod 2^32 (ISIZE, RFC 1952),
+    // so the body does not have to be inflated a second time just to count it
+    static long gzipSize(byte[] data) {
+        int n = data.length;
+        if (n < 18) return n;
+        return (data[n - 4] & 0xFFL)
+                | (data[n - 3] & 0xFFL) << 8
+                | (data[n - 2] & 0xFFL) << 16
+                | (data[n - 1] & 0xFFL) << 24;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.minh_book_library;
+
+import android.os.SystemClock;
+
+import com.android.volley.VolleyError;
+
+// Stops calling the books API for a while after it keeps failing.
+// CLOSED: requests go through. OPEN: requests are refused until the cool-down
+// ends. HALF_OPEN: one trial request decides whether to close or open again.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Delivered instead of a network call while the circuit is open
+    public static class OpenError extends VolleyError {
+        public OpenError() {
+            super("Books API temporarily unavailable");
+        }
+    }
+
+    // Answers of acquire() besides a trial number
+    public static final int REFUSED = -1;
+    public static final int NOT_A_TRIAL = 0;
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MS = 30_000;
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean trialInFlight = false;
+    // Number of the latest half-open trial, so only its cancellation frees the slot
+    private int trial = NOT_A_TRIAL;
+
+    // Metrics
+    private long successCount = 0;
+    private long failureCount = 0;
+    private long shortCircuitCount = 0;
+    private long openCount = 0;
+
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MS);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    // Whether a request may go to the network right now: REFUSED, NOT_A_TRIAL, or
+    // the number of the half-open trial request, which recordCancelled() needs
+    public synchronized int acquire() {
+        if (state == State.OPEN && SystemClock.elapsedRealtime() >= openUntil) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.CLOSED) return NOT_A_TRIAL;
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return ++trial;
+        }
+        shortCircuitCount++;
+        return REFUSED;
+    }
+
+    public synchronized void recordSuccess() {
+        successCount++;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    // retryAfterMs is how long the server asked us to wait, or -1
+    public synchronized void recordFailure(long retryAfterMs) {
+        failureCount++;
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold || retryAfterMs > 0) {
+            state = State.OPEN;
+            openCount++;
+            openUntil = SystemClock.elapsedRealtime() + Math.max(openMs, retryAfterMs);
+        }
+    }
+
+    // A request let through was cancelled before it finished. Only the current
+    // trial's cancellation lets another trial go; an older request's doesn't.
+    public synchronized void recordCancelled(int permit) {
+        if (permit != NOT_A_TRIAL && permit == trial) trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getSuccessCount() {
+        return successCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    public synchronized long getShortCircuitCount() {
+        return shortCircuitCount;
+    }
+
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{state=" + state + ", successes=" + successCount + ", failures=" + failureCount
+                + ", shortCircuits=" + shortCircuitCount + ", opened=" + openCount + "}";
+    }
+}
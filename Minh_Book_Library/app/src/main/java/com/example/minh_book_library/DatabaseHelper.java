@@ -3,36 +3,177 @@ package com.example.minh_book_library;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.*;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String DATABASE_NAME = "Library.db";
     public static final String TABLE_USERS = "users";
     public static final String TABLE_BOOKS = "saved_books";
-    public static final int DATABASE_VERSION = 2;
+    public static final String TABLE_BOOKS_FTS = "saved_books_fts";
+    public static final String TABLE_AUTHORS = "authors";
+    public static final String TABLE_BOOK_AUTHORS = "book_authors";
+    public static final int DATABASE_VERSION = 7;
+
+    // SQLite allows 999 bound parameters per statement
+    private static final int MAX_IN_PARAMS = 500;
+    // Rows written per transaction during import, and read per query during export
+    public static final int TRANSFER_CHUNK_SIZE = 1000;
+
+    // Reports how many books have been exported or imported so far
+    public interface ProgressListener {
+        void onProgress(int done);
+    }
+
+    // Weight of each FTS column when ranking search hits (same order as the FTS table)
+    private static final double[] FTS_COLUMN_WEIGHTS = {4.0, 2.0, 3.0, 1.0, 0.5};
+
+    // One window of saved books plus the row ids needed to fetch its neighbours
+    public static class SavedBooksPage {
+        public final ArrayList<BookInfo> books;
+        public final long firstRowId;
+        public final long lastRowId;
+
+        SavedBooksPage(ArrayList<BookInfo> books, long firstRowId, long lastRowId) {
+            this.books = books;
+            this.firstRowId = firstRowId;
+            this.lastRowId = lastRowId;
+        }
+    }
 
     // Current logged in user
-    private static String currentUser = "";
+    private static volatile String currentUser = "";
+
+    private final boolean writeAheadLogging;
 
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME, true);
+    }
+
+    // A separate database file, for tests; journaling can be switched back to
+    // rollback mode to compare against
+    DatabaseHelper(Context context, String name, boolean writeAheadLogging) {
+        super(context, name, null, DATABASE_VERSION);
+        this.writeAheadLogging = writeAheadLogging;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // book_authors rows go away together with their book
+        db.setForeignKeyConstraintsEnabled(true);
+        // Write-ahead logging lets the reader threads keep loading while a save is written
+        if (writeAheadLogging) {
+            db.enableWriteAheadLogging();
+        } else {
+            db.disableWriteAheadLogging();
+        }
     }
 
     // Create tables
     @Override
     public void onCreate(SQLiteDatabase db) {
+        createTables(db);
+    }
+
+    // The current schema, also the target of the v1 copy migration
+    static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE " + TABLE_USERS + " (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE, password TEXT)");
         db.execSQL("CREATE TABLE " + TABLE_BOOKS + " (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT, title TEXT, " +
                 "subtitle TEXT, authors TEXT, publisher TEXT, description TEXT, pageCount INTEGER, " +
-                "thumbnail TEXT, previewLink TEXT, infoLink TEXT, publishedDate TEXT)");
+                "thumbnail TEXT, previewLink TEXT, infoLink TEXT, publishedDate TEXT, volume_id TEXT)");
+        createSavedBooksIndexes(db);
+        createSavedBooksFts(db);
+        createAuthorTables(db);
+    }
+
+    // Authors are stored once and linked to books in order; saved_books.authors
+    // only keeps a display copy for the full-text index
+    static void createAuthorTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_AUTHORS + " (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL UNIQUE)");
+        db.execSQL("CREATE TABLE " + TABLE_BOOK_AUTHORS + " (" +
+                "book_id INTEGER NOT NULL REFERENCES " + TABLE_BOOKS + "(id) ON DELETE CASCADE, " +
+                "author_id INTEGER NOT NULL REFERENCES " + TABLE_AUTHORS + "(id), " +
+                "position INTEGER NOT NULL, PRIMARY KEY (book_id, position))");
+        db.execSQL("CREATE INDEX idx_book_authors_author ON " + TABLE_BOOK_AUTHORS + " (author_id, book_id)");
+    }
+
+    // One row per (user, Google volume); books saved before v4 have a NULL volume_id
+    static void createSavedBooksIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_saved_books_user_volume ON " + TABLE_BOOKS +
+                " (username, volume_id)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_saved_books_user_title ON " + TABLE_BOOKS +
+                " (username, title)");
+        // Keyset paging: WHERE username=? AND id>? ORDER BY id
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_saved_books_user_id ON " + TABLE_BOOKS +
+                " (username, id)");
+    }
+
+    // Full-text index over saved_books, kept in sync by triggers. While an upgrade
+    // is still indexing old books in the background, the triggers leave alone the
+    // rows it has not reached yet: removing a row that was never indexed would
+    // corrupt an external content FTS table.
+    static void createSavedBooksFts(SQLiteDatabase db) {
+        DatabaseMigrations.createBackfillTable(db);
+        // unicode61 folds case and accents beyond ASCII, so "cafe" finds "Café"
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_BOOKS_FTS + " USING fts4(content=\"" + TABLE_BOOKS + "\", " +
+                "title, subtitle, authors, publisher, description, tokenize=unicode61)");
+        db.execSQL("CREATE TRIGGER saved_books_fts_bd BEFORE DELETE ON " + TABLE_BOOKS +
+                " WHEN " + ftsIndexed("old.id") + " BEGIN " +
+                "DELETE FROM " + TABLE_BOOKS_FTS + " WHERE docid = old.id; END");
+        db.execSQL("CREATE TRIGGER saved_books_fts_bu BEFORE UPDATE ON " + TABLE_BOOKS +
+                " WHEN " + ftsIndexed("old.id") + " BEGIN " +
+                "DELETE FROM " + TABLE_BOOKS_FTS + " WHERE docid = old.id; END");
+        db.execSQL("CREATE TRIGGER saved_books_fts_ai AFTER INSERT ON " + TABLE_BOOKS +
+                " WHEN " + ftsIndexed("new.id") + " BEGIN " +
+                "INSERT INTO " + TABLE_BOOKS_FTS + "(docid, title, subtitle, authors, publisher, description) " +
+                "VALUES (new.id, new.title, new.subtitle, new.authors, new.publisher, new.description); END");
+        db.execSQL("CREATE TRIGGER saved_books_fts_au AFTER UPDATE ON " + TABLE_BOOKS +
+                " WHEN " + ftsIndexed("new.id") + " BEGIN " +
+                "INSERT INTO " + TABLE_BOOKS_FTS + "(docid, title, subtitle, authors, publisher, description) " +
+                "VALUES (new.id, new.title, new.subtitle, new.authors, new.publisher, new.description); END");
+    }
+
+    static void dropSavedBooksFts(SQLiteDatabase db) {
+        for (String trigger : new String[]{"bd", "bu", "ai", "au"}) {
+            db.execSQL("DROP TRIGGER IF EXISTS saved_books_fts_" + trigger);
+        }
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BOOKS_FTS);
+    }
+
+    // True when the FTS backfill is done or has already passed rowId
+    private static String ftsIndexed(String rowId) {
+        return rowId + " <= COALESCE((SELECT last_row_id FROM " + DatabaseMigrations.TABLE_BACKFILLS +
+                " WHERE name='" + DatabaseMigrations.BACKFILL_FTS + "'), " + rowId + ")";
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldV, int newV) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BOOKS);
-        onCreate(db);
+        DatabaseMigrations.migrate(db, oldV, newV);
+    }
+
+    // Finish data backfills that a migration left for after start-up (large libraries only)
+    public void runPendingBackfills() {
+        DatabaseMigrations.runPendingBackfills(getWritableDatabase());
+    }
+
+    // One chunk of the pending backfills; returns whether any work is left
+    public boolean runNextBackfillChunk() {
+        return DatabaseMigrations.runNextBackfillChunk(getWritableDatabase());
     }
 
     // Set current user
@@ -82,7 +223,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         cv.put("username", currentUser);
         cv.put("title", bookInfo.getTitle());
         cv.put("subtitle", bookInfo.getSubtitle());
-        cv.put("authors", bookInfo.getAuthors() != null ? String.join(",", bookInfo.getAuthors()) : "");
+        ArrayList<String> authors = bookInfo.getAuthors() != null ? bookInfo.getAuthors() : new ArrayList<>();
+        // Display copy for the full-text index only, authors are read back from book_authors
+        cv.put("authors", String.join(", ", authors));
         cv.put("publisher", bookInfo.getPublisher());
         cv.put("description", bookInfo.getDescription());
         cv.put("pageCount", bookInfo.getPageCount());
@@ -90,80 +233,482 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         cv.put("previewLink", bookInfo.getPreviewLink());
         cv.put("infoLink", bookInfo.getInfoLink());
         cv.put("publishedDate", bookInfo.getPublishedDate());
+        String volumeId = bookInfo.getId();
+        if (volumeId != null && !volumeId.isEmpty()) {
+            cv.put("volume_id", volumeId);
+        }
 
-        long result = db.insert(TABLE_BOOKS, null, cv);
-        return result != -1;
+        db.beginTransaction();
+        try {
+            long bookId = db.insert(TABLE_BOOKS, null, cv);
+            if (bookId == -1) return false;
+            insertBookAuthors(db, bookId, authors);
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Link a book to its authors, creating author rows that don't exist yet
+    private static void insertBookAuthors(SQLiteDatabase db, long bookId, List<String> authors) {
+        AuthorLinker linker = new AuthorLinker(db);
+        try {
+            linker.link(bookId, authors);
+        } finally {
+            linker.close();
+        }
+    }
+
+    // Compiled statements for linking authors, reusable across many books
+    static class AuthorLinker {
+        final SQLiteStatement insertAuthor;
+        final SQLiteStatement findAuthor;
+        final SQLiteStatement link;
+
+        AuthorLinker(SQLiteDatabase db) {
+            insertAuthor = db.compileStatement(
+                    "INSERT OR IGNORE INTO " + TABLE_AUTHORS + " (name) VALUES (?)");
+            findAuthor = db.compileStatement(
+                    "SELECT id FROM " + TABLE_AUTHORS + " WHERE name=?");
+            link = db.compileStatement(
+                    "INSERT OR IGNORE INTO " + TABLE_BOOK_AUTHORS + " (book_id, author_id, position) VALUES (?, ?, ?)");
+        }
+
+        void link(long bookId, List<String> authors) {
+            for (int i = 0; i < authors.size(); i++) {
+                String name = authors.get(i);
+                insertAuthor.bindString(1, name);
+                long authorId = insertAuthor.executeInsert();
+                if (authorId == -1) {
+                    findAuthor.bindString(1, name);
+                    authorId = findAuthor.simpleQueryForLong();
+                }
+                link.bindLong(1, bookId);
+                link.bindLong(2, authorId);
+                link.bindLong(3, i);
+                link.executeInsert();
+            }
+        }
+
+        void close() {
+            insertAuthor.close();
+            findAuthor.close();
+            link.close();
+        }
+    }
+
+    // Stream the current user's saved books to out as a JSON array, a chunk of rows at a time.
+    // Returns the number of books written.
+    public int exportSavedBooks(Writer out, ProgressListener progress) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        int done = 0;
+        writer.beginArray();
+        long lastRowId = -1;
+        while (true) {
+            SavedBooksPage page = getSavedBooksAfter(lastRowId, TRANSFER_CHUNK_SIZE);
+            if (page.books.isEmpty()) break;
+            for (BookInfo book : page.books) {
+                writeBookJson(writer, book);
+            }
+            done += page.books.size();
+            lastRowId = page.lastRowId;
+            if (progress != null) progress.onProgress(done);
+        }
+        writer.endArray();
+        writer.flush();
+        return done;
+    }
+
+    private static void writeBookJson(JsonWriter writer, BookInfo book) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(book.getId());
+        writer.name("title").value(book.getTitle());
+        writer.name("subtitle").value(book.getSubtitle());
+        writer.name("authors").beginArray();
+        if (book.getAuthors() != null) {
+            for (String author : book.getAuthors()) writer.value(author);
+        }
+        writer.endArray();
+        writer.name("publisher").value(book.getPublisher());
+        writer.name("publishedDate").value(book.getPublishedDate());
+        writer.name("description").value(book.getDescription());
+        writer.name("pageCount").value(book.getPageCount());
+        writer.name("thumbnail").value(book.getThumbnail());
+        writer.name("previewLink").value(book.getPreviewLink());
+        writer.name("infoLink").value(book.getInfoLink());
+        writer.endObject();
+    }
+
+    // Read a JSON array written by exportSavedBooks into the current user's library.
+    // Rows are inserted with one compiled statement inside chunked transactions;
+    // books the user already saved are skipped: same volume id, or for books
+    // without one (saved before v4) same title and publisher. Returns the number imported.
+    public int importSavedBooks(Reader in, ProgressListener progress) throws IOException {
+        if (currentUser.isEmpty()) return 0;
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insertBook = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_BOOKS +
+                " (username, title, subtitle, authors, publisher, description, pageCount, thumbnail," +
+                " previewLink, infoLink, publishedDate, volume_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        // The unique index only covers rows with a volume id, NULLs never collide.
+        // An export writes a missing publisher as null and it is read back as "".
+        SQLiteStatement savedWithoutId = db.compileStatement("SELECT EXISTS(SELECT 1 FROM " + TABLE_BOOKS +
+                " WHERE username=? AND title=? AND volume_id IS NULL AND IFNULL(publisher, '')=?)");
+        AuthorLinker linker = new AuthorLinker(db);
+        JsonReader reader = new JsonReader(in);
+        int imported = 0;
+        int inChunk = 0;
+        try {
+            reader.beginArray();
+            db.beginTransaction();
+            while (reader.hasNext()) {
+                BookInfo book = readBookJson(reader);
+                long bookId = -1;
+                if (!isSavedWithoutId(savedWithoutId, book)) {
+                    bindBook(insertBook, book);
+                    bookId = insertBook.executeInsert();
+                }
+                if (bookId != -1) {
+                    linker.link(bookId, book.getAuthors());
+                    imported++;
+                }
+                if (++inChunk == TRANSFER_CHUNK_SIZE) {
+                    // Commit this chunk so one huge transaction doesn't hold the write lock
+                    db.setTransactionSuccessful();
+                    db.endTransaction();
+                    inChunk = 0;
+                    if (progress != null) progress.onProgress(imported);
+                    db.beginTransaction();
+                }
+            }
+            reader.endArray();
+            db.setTransactionSuccessful();
+        } finally {
+            if (db.inTransaction()) db.endTransaction();
+            insertBook.close();
+            savedWithoutId.close();
+            linker.close();
+        }
+        if (progress != null) progress.onProgress(imported);
+        return imported;
+    }
+
+    private static boolean isSavedWithoutId(SQLiteStatement statement, BookInfo book) {
+        if (book.getId() != null && !book.getId().isEmpty()) return false;
+        statement.clearBindings();
+        statement.bindString(1, currentUser);
+        statement.bindString(2, book.getTitle() != null ? book.getTitle() : "");
+        statement.bindString(3, book.getPublisher() != null ? book.getPublisher() : "");
+        return statement.simpleQueryForLong() != 0;
+    }
+
+    private static void bindBook(SQLiteStatement statement, BookInfo book) {
+        statement.clearBindings();
+        statement.bindString(1, currentUser);
+        bindNullable(statement, 2, book.getTitle());
+        bindNullable(statement, 3, book.getSubtitle());
+        statement.bindString(4, String.join(", ", book.getAuthors()));
+        bindNullable(statement, 5, book.getPublisher());
+        bindNullable(statement, 6, book.getDescription());
+        statement.bindLong(7, book.getPageCount());
+        bindNullable(statement, 8, book.getThumbnail());
+        bindNullable(statement, 9, book.getPreviewLink());
+        bindNullable(statement, 10, book.getInfoLink());
+        bindNullable(statement, 11, book.getPublishedDate());
+        String volumeId = book.getId();
+        bindNullable(statement, 12, volumeId != null && !volumeId.isEmpty() ? volumeId : null);
     }
 
-    // Check if book is already saved
-    public boolean isBookSaved(String title) {
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static BookInfo readBookJson(JsonReader reader) throws IOException {
+        String id = "", title = "", subtitle = "", publisher = "", publishedDate = "";
+        String description = "", thumbnail = "", previewLink = "", infoLink = "";
+        int pageCount = 0;
+        ArrayList<String> authors = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "id": id = reader.nextString(); break;
+                case "title": title = reader.nextString(); break;
+                case "subtitle": subtitle = reader.nextString(); break;
+                case "publisher": publisher = reader.nextString(); break;
+                case "publishedDate": publishedDate = reader.nextString(); break;
+                case "description": description = reader.nextString(); break;
+                case "pageCount": pageCount = reader.nextInt(); break;
+                case "thumbnail": thumbnail = reader.nextString(); break;
+                case "previewLink": previewLink = reader.nextString(); break;
+                case "infoLink": infoLink = reader.nextString(); break;
+                case "authors":
+                    reader.beginArray();
+                    while (reader.hasNext()) authors.add(reader.nextString());
+                    reader.endArray();
+                    break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+
+        BookInfo book = new BookInfo(title, subtitle, authors, publisher, publishedDate,
+                description, pageCount, thumbnail, previewLink, infoLink, "");
+        book.setId(id);
+        return book;
+    }
+
+    // Check if book is already saved, by volume id when we have one, otherwise by title
+    // among the books saved without one. Both lookups are served by an index and stop
+    // at the first row.
+    public boolean isBookSaved(String volumeId, String title) {
         if (currentUser.isEmpty()) return false;
 
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_BOOKS +
-                        " WHERE username=? AND title=?",
-                new String[]{currentUser, title});
-        boolean result = cursor.getCount() > 0;
+        if (volumeId != null && !volumeId.isEmpty()) {
+            return DatabaseUtils.longForQuery(db, "SELECT EXISTS(SELECT 1 FROM " + TABLE_BOOKS +
+                    " WHERE username=? AND volume_id=? LIMIT 1)", new String[]{currentUser, volumeId}) != 0;
+        }
+        return DatabaseUtils.longForQuery(db, "SELECT EXISTS(SELECT 1 FROM " + TABLE_BOOKS +
+                " WHERE username=? AND title=? AND volume_id IS NULL LIMIT 1)",
+                new String[]{currentUser, title}) != 0;
+    }
+
+    // Up to limit saved books with a row id greater than afterRowId, oldest first
+    public SavedBooksPage getSavedBooksAfter(long afterRowId, int limit) {
+        return getSavedBooksPage("id>? ORDER BY id ASC", afterRowId, limit, false);
+    }
+
+    // Up to limit saved books with a row id smaller than beforeRowId, oldest first
+    public SavedBooksPage getSavedBooksBefore(long beforeRowId, int limit) {
+        return getSavedBooksPage("id<? ORDER BY id DESC", beforeRowId, limit, true);
+    }
+
+    // Keyset pagination: seek by row id through the (username, id) index instead of OFFSET
+    private SavedBooksPage getSavedBooksPage(String seek, long rowId, int limit, boolean reverse) {
+        ArrayList<BookInfo> books = new ArrayList<>();
+        if (currentUser.isEmpty()) return new SavedBooksPage(books, -1, -1);
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_BOOKS + " WHERE username=? AND " + seek +
+                        " LIMIT " + limit,
+                new String[]{currentUser, String.valueOf(rowId)});
+
+        HashMap<Long, BookInfo> byRowId = new HashMap<>();
+        ArrayList<Long> rowIds = new ArrayList<>();
+        BookColumns columns = new BookColumns(cursor);
+        while (cursor.moveToNext()) {
+            BookInfo book = readBook(cursor, columns);
+            long id = cursor.getLong(columns.id);
+            byRowId.put(id, book);
+            rowIds.add(id);
+            books.add(book);
+        }
         cursor.close();
-        return result;
+        attachAuthors(db, byRowId);
+
+        if (reverse) {
+            Collections.reverse(books);
+            Collections.reverse(rowIds);
+        }
+        if (books.isEmpty()) return new SavedBooksPage(books, -1, -1);
+        return new SavedBooksPage(books, rowIds.get(0), rowIds.get(rowIds.size() - 1));
     }
 
-    // Get all saved books for current user
-    public ArrayList<BookInfo> getSavedBooks() {
-        ArrayList<BookInfo> savedBooks = new ArrayList<>();
-        if (currentUser.isEmpty()) return savedBooks;
+    // All of the current user's saved books by one author, found through the author index
+    public ArrayList<BookInfo> getBooksByAuthor(String author) {
+        ArrayList<BookInfo> books = new ArrayList<>();
+        if (currentUser.isEmpty()) return books;
 
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_BOOKS + " WHERE username=?",
-                new String[]{currentUser});
-
-        int titleIndex = cursor.getColumnIndexOrThrow("title");
-        int subtitleIndex = cursor.getColumnIndexOrThrow("subtitle");
-        int authorsIndex = cursor.getColumnIndexOrThrow("authors");
-        int publisherIndex = cursor.getColumnIndexOrThrow("publisher");
-        int descriptionIndex = cursor.getColumnIndexOrThrow("description");
-        int pageCountIndex = cursor.getColumnIndexOrThrow("pageCount");
-        int thumbnailIndex = cursor.getColumnIndexOrThrow("thumbnail");
-        int previewLinkIndex = cursor.getColumnIndexOrThrow("previewLink");
-        int infoLinkIndex = cursor.getColumnIndexOrThrow("infoLink");
-        int publishedDateIndex = cursor.getColumnIndexOrThrow("publishedDate");
+        Cursor cursor = db.rawQuery("SELECT b.* FROM " + TABLE_AUTHORS + " a" +
+                        " JOIN " + TABLE_BOOK_AUTHORS + " ba ON ba.author_id = a.id" +
+                        " JOIN " + TABLE_BOOKS + " b ON b.id = ba.book_id" +
+                        " WHERE a.name=? AND b.username=?",
+                new String[]{author, currentUser});
 
+        HashMap<Long, BookInfo> byRowId = new HashMap<>();
+        BookColumns columns = new BookColumns(cursor);
         while (cursor.moveToNext()) {
-            String title = cursor.getString(titleIndex);
-            String subtitle = cursor.getString(subtitleIndex);
-            String authorsStr = cursor.getString(authorsIndex);
-            String publisher = cursor.getString(publisherIndex);
-            String description = cursor.getString(descriptionIndex);
-            int pageCount = cursor.getInt(pageCountIndex);
-            String thumbnail = cursor.getString(thumbnailIndex);
-            String previewLink = cursor.getString(previewLinkIndex);
-            String infoLink = cursor.getString(infoLinkIndex);
-            String publishedDate = cursor.getString(publishedDateIndex);
-
-            ArrayList<String> authorsList = new ArrayList<>();
-            if (authorsStr != null && !authorsStr.isEmpty()) {
-                String[] authors = authorsStr.split(",");
-                for (String author : authors) {
-                    authorsList.add(author);
-                }
+            BookInfo book = readBook(cursor, columns);
+            byRowId.put(cursor.getLong(columns.id), book);
+            books.add(book);
+        }
+        cursor.close();
+        attachAuthors(db, byRowId);
+        return books;
+    }
+
+    // One of the current user's saved books by its list key (BookInfo.getKey()): the
+    // volume id, or title|publisher for books saved before ids were stored. Null if not saved.
+    public BookInfo getSavedBook(String key) {
+        if (currentUser.isEmpty()) return null;
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_BOOKS + " WHERE username=? AND volume_id=? LIMIT 1",
+                new String[]{currentUser, key});
+        if (cursor.getCount() == 0) {
+            cursor.close();
+            cursor = db.rawQuery("SELECT * FROM " + TABLE_BOOKS + " WHERE username=? AND volume_id IS NULL" +
+                            " AND title || '|' || IFNULL(publisher, 'null') = ? LIMIT 1",
+                    new String[]{currentUser, key});
+        }
+
+        HashMap<Long, BookInfo> byRowId = new HashMap<>();
+        BookInfo book = null;
+        if (cursor.moveToFirst()) {
+            BookColumns columns = new BookColumns(cursor);
+            book = readBook(cursor, columns);
+            byRowId.put(cursor.getLong(columns.id), book);
+        }
+        cursor.close();
+        attachAuthors(db, byRowId);
+        return book;
+    }
+
+    // Load the authors of many books with one query per chunk of ids instead of one per book
+    private static void attachAuthors(SQLiteDatabase db, Map<Long, BookInfo> byRowId) {
+        ArrayList<Long> ids = new ArrayList<>(byRowId.keySet());
+        for (int start = 0; start < ids.size(); start += MAX_IN_PARAMS) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_PARAMS));
+            String[] args = new String[chunk.size()];
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i] = String.valueOf(chunk.get(i));
+                placeholders.append(i == 0 ? "?" : ",?");
             }
+            Cursor cursor = db.rawQuery("SELECT ba.book_id, a.name FROM " + TABLE_BOOK_AUTHORS + " ba" +
+                    " JOIN " + TABLE_AUTHORS + " a ON a.id = ba.author_id" +
+                    " WHERE ba.book_id IN (" + placeholders + ") ORDER BY ba.book_id, ba.position", args);
+            while (cursor.moveToNext()) {
+                BookInfo book = byRowId.get(cursor.getLong(0));
+                if (book != null) book.getAuthors().add(cursor.getString(1));
+            }
+            cursor.close();
+        }
+    }
+
+    // Full-text search over the current user's saved books, best matches first
+    public ArrayList<BookInfo> searchSavedBooks(String query) {
+        ArrayList<BookInfo> results = new ArrayList<>();
+        String match = toFtsQuery(query);
+        if (currentUser.isEmpty() || match.isEmpty()) return results;
 
-            BookInfo book = new BookInfo(title, subtitle, authorsList, publisher, publishedDate,
-                    description, pageCount, thumbnail, previewLink,
-                    infoLink, "");
-            savedBooks.add(book);
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT b.*, matchinfo(" + TABLE_BOOKS_FTS + ", 'pcx') AS rank_info FROM " +
+                        TABLE_BOOKS_FTS + " JOIN " + TABLE_BOOKS + " b ON b.id = " + TABLE_BOOKS_FTS + ".docid" +
+                        " WHERE " + TABLE_BOOKS_FTS + " MATCH ? AND b.username=?",
+                new String[]{match, currentUser});
+
+        int rankIndex = cursor.getColumnIndexOrThrow("rank_info");
+        BookColumns columns = new BookColumns(cursor);
+        HashMap<Long, BookInfo> byRowId = new HashMap<>();
+        ArrayList<double[]> scored = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            scored.add(new double[]{rank(cursor.getBlob(rankIndex)), results.size()});
+            BookInfo book = readBook(cursor, columns);
+            byRowId.put(cursor.getLong(columns.id), book);
+            results.add(book);
         }
         cursor.close();
-        return savedBooks;
+        attachAuthors(db, byRowId);
+
+        // Highest score first
+        scored.sort((a, b) -> Double.compare(b[0], a[0]));
+        ArrayList<BookInfo> ranked = new ArrayList<>(results.size());
+        for (double[] s : scored) {
+            ranked.add(results.get((int) s[1]));
+        }
+        return ranked;
+    }
+
+    // Turn user input into an FTS query: every word must match as a prefix
+    private static String toFtsQuery(String query) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : query.replace("\"", " ").trim().split("\\s+")) {
+            if (word.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('"').append(word).append("*\"");
+        }
+        return sb.toString();
+    }
+
+    // Score a row from its matchinfo('pcx') blob: for every phrase and column,
+    // hits in this row relative to hits in all rows, weighted by column
+    private static double rank(byte[] matchInfo) {
+        IntBuffer ints = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = ints.get(0);
+        int columns = ints.get(1);
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns && c < FTS_COLUMN_WEIGHTS.length; c++) {
+                int base = 2 + 3 * (p * columns + c);
+                int hitsThisRow = ints.get(base);
+                int hitsAllRows = ints.get(base + 1);
+                if (hitsThisRow > 0 && hitsAllRows > 0) {
+                    score += FTS_COLUMN_WEIGHTS[c] * hitsThisRow / hitsAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    // Column positions of a saved_books cursor, looked up once per query rather than per row
+    private static final class BookColumns {
+        final int id, title, subtitle, publisher, description, pageCount, thumbnail,
+                previewLink, infoLink, publishedDate, volumeId;
+
+        BookColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow("id");
+            title = cursor.getColumnIndexOrThrow("title");
+            subtitle = cursor.getColumnIndexOrThrow("subtitle");
+            publisher = cursor.getColumnIndexOrThrow("publisher");
+            description = cursor.getColumnIndexOrThrow("description");
+            pageCount = cursor.getColumnIndexOrThrow("pageCount");
+            thumbnail = cursor.getColumnIndexOrThrow("thumbnail");
+            previewLink = cursor.getColumnIndexOrThrow("previewLink");
+            infoLink = cursor.getColumnIndexOrThrow("infoLink");
+            publishedDate = cursor.getColumnIndexOrThrow("publishedDate");
+            volumeId = cursor.getColumnIndexOrThrow("volume_id");
+        }
+    }
+
+    // Read one saved_books row into a BookInfo; authors are filled in by attachAuthors
+    private static BookInfo readBook(Cursor cursor, BookColumns columns) {
+        BookInfo book = new BookInfo(cursor.getString(columns.title), cursor.getString(columns.subtitle),
+                new ArrayList<>(), cursor.getString(columns.publisher), cursor.getString(columns.publishedDate),
+                cursor.getString(columns.description), cursor.getInt(columns.pageCount),
+                cursor.getString(columns.thumbnail), cursor.getString(columns.previewLink),
+                cursor.getString(columns.infoLink), "");
+        String volumeId = cursor.getString(columns.volumeId);
+        book.setId(volumeId != null ? volumeId : "");
+        return book;
     }
 
-    // Remove saved book
-    public boolean removeSavedBook(String title) {
+    // Remove saved book. Without a volume id only books saved without one match the
+    // title, so a same-titled edition saved with an id is left alone.
+    public boolean removeSavedBook(String volumeId, String title) {
         if (currentUser.isEmpty()) return false;
 
         SQLiteDatabase db = this.getWritableDatabase();
-        int result = db.delete(TABLE_BOOKS, "username=? AND title=?",
-                new String[]{currentUser, title});
+        int result;
+        if (volumeId != null && !volumeId.isEmpty()) {
+            result = db.delete(TABLE_BOOKS, "username=? AND volume_id=?",
+                    new String[]{currentUser, volumeId});
+        } else {
+            result = db.delete(TABLE_BOOKS, "username=? AND title=? AND volume_id IS NULL",
+                    new String[]{currentUser, title});
+        }
         return result > 0;
     }
 }
\ No newline at end of file
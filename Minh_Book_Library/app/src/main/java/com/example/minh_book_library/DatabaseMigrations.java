@@ -0,0 +1,308 @@
+package com.example.minh_book_library;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Step-by-step upgrades of Library.db. Each step moves the schema up exactly one
+// version and keeps the users' data; SQLiteOpenHelper runs onUpgrade inside one
+// transaction, so a failed step leaves the old database untouched.
+// Work that is not needed to open the database (copying v1 books, author links,
+// the search index) runs inline for small libraries and in chunks after start-up
+// for large ones, so the upgrade transaction stays short.
+final class DatabaseMigrations {
+
+    private static final String TAG = "DatabaseMigrations";
+
+    // Rows copied per statement, so a big table never has to be held at once
+    static final int COPY_CHUNK_SIZE = 500;
+    // Above this many saved books, backfills are left to runPendingBackfills()
+    static final int ONLINE_THRESHOLD_ROWS = 5000;
+
+    // Work queued by a migration: name -> last row id already done
+    static final String TABLE_BACKFILLS = "pending_backfills";
+    // The v1 books kept in their renamed table until copied
+    static final String BACKFILL_V1_BOOKS = DatabaseHelper.TABLE_BOOKS + "_v1";
+    static final String BACKFILL_AUTHORS = "book_authors";
+    static final String BACKFILL_FTS = DatabaseHelper.TABLE_BOOKS_FTS;
+    // Order in which runPendingBackfills() works through them: authors and the
+    // search index need the copied v1 books
+    private static final String[] BACKFILLS = {BACKFILL_V1_BOOKS, BACKFILL_AUTHORS, BACKFILL_FTS};
+
+    private DatabaseMigrations() {
+    }
+
+    static void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        long start = SystemClock.elapsedRealtime();
+        if (oldVersion < 2) {
+            migrateFromV1(db);
+        } else {
+            for (int version = oldVersion + 1; version <= newVersion; version++) {
+                long stepStart = SystemClock.elapsedRealtime();
+                migrateTo(db, version);
+                Log.d(TAG, "Migrated to v" + version + " in " + (SystemClock.elapsedRealtime() - stepStart) + " ms");
+            }
+        }
+        Log.d(TAG, "Upgrade v" + oldVersion + " -> v" + newVersion + " took "
+                + (SystemClock.elapsedRealtime() - start) + " ms");
+    }
+
+    // One schema step; version is the version being reached
+    private static void migrateTo(SQLiteDatabase db, int version) {
+        switch (version) {
+            case 3:
+                // Only the search index is new, index the books users already saved
+                DatabaseHelper.createSavedBooksFts(db);
+                scheduleFtsBackfill(db);
+                break;
+            case 4:
+                // Keep existing rows, they just have no volume id yet
+                db.execSQL("ALTER TABLE " + DatabaseHelper.TABLE_BOOKS + " ADD COLUMN volume_id TEXT");
+                DatabaseHelper.createSavedBooksIndexes(db);
+                break;
+            case 5:
+                DatabaseHelper.createAuthorTables(db);
+                scheduleAuthorBackfill(db);
+                break;
+            case 6:
+                DatabaseHelper.createSavedBooksIndexes(db);
+                break;
+            case 7:
+                // The tokenizer is fixed when an FTS table is created, build the index again
+                DatabaseHelper.dropSavedBooksFts(db);
+                DatabaseHelper.createSavedBooksFts(db);
+                scheduleFtsBackfill(db);
+                break;
+            default:
+                throw new IllegalStateException("No migration to database version " + version);
+        }
+    }
+
+    // The v1 layout predates this runner, so instead of altering it in place the
+    // old tables are renamed, the current schema is created and every column the
+    // two layouts share is copied over
+    private static void migrateFromV1(SQLiteDatabase db) {
+        String oldUsers = DatabaseHelper.TABLE_USERS + "_v1";
+        String oldBooks = BACKFILL_V1_BOOKS;
+        db.execSQL("DROP TABLE IF EXISTS " + DatabaseHelper.TABLE_BOOKS_FTS);
+        boolean hadUsers = renameIfExists(db, DatabaseHelper.TABLE_USERS, oldUsers);
+        boolean hadBooks = renameIfExists(db, DatabaseHelper.TABLE_BOOKS, oldBooks);
+
+        DatabaseHelper.createTables(db);
+        // The FTS triggers index every copied book as it is inserted
+        if (hadUsers) {
+            copyTable(db, oldUsers, DatabaseHelper.TABLE_USERS);
+            db.execSQL("DROP TABLE " + oldUsers);
+        }
+        if (!hadBooks) return;
+        long rows = DatabaseUtils.queryNumEntries(db, oldBooks);
+        if (rows <= ONLINE_THRESHOLD_ROWS) {
+            copyTable(db, oldBooks, DatabaseHelper.TABLE_BOOKS);
+            db.execSQL("DROP TABLE " + oldBooks);
+            scheduleAuthorBackfill(db);
+            return;
+        }
+        // Books saved before the copy is done must not take ids the old ones still need
+        db.execSQL("INSERT INTO sqlite_sequence (name, seq) SELECT ?, MAX(rowid) FROM " + oldBooks,
+                new Object[]{DatabaseHelper.TABLE_BOOKS});
+        schedule(db, BACKFILL_V1_BOOKS);
+        schedule(db, BACKFILL_AUTHORS);
+        Log.d(TAG, rows + " v1 books, they will be copied after start-up");
+    }
+
+    private static boolean renameIfExists(SQLiteDatabase db, String table, String newName) {
+        long exists = DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM sqlite_master WHERE type='table' AND name=?", new String[]{table});
+        if (exists == 0) return false;
+        db.execSQL("DROP TABLE IF EXISTS " + newName);
+        db.execSQL("ALTER TABLE " + table + " RENAME TO " + newName);
+        return true;
+    }
+
+    // Copy the columns both tables have, COPY_CHUNK_SIZE rows per statement
+    private static void copyTable(SQLiteDatabase db, String from, String to) {
+        long after = -1;
+        while (after != Long.MAX_VALUE) {
+            after = copyChunk(db, from, to, after);
+        }
+    }
+
+    // Copy the next COPY_CHUNK_SIZE rows after afterRowId. Returns the last row id
+    // copied, or Long.MAX_VALUE when no rows are left.
+    private static long copyChunk(SQLiteDatabase db, String from, String to, long afterRowId) {
+        Set<String> columns = columnsOf(db, from);
+        columns.retainAll(columnsOf(db, to));
+        if (columns.isEmpty()) return Long.MAX_VALUE;
+        String columnList = String.join(", ", columns);
+
+        String[] args = {String.valueOf(afterRowId)};
+        String last = DatabaseUtils.stringForQuery(db, "SELECT MAX(rowid) FROM (SELECT rowid FROM " + from +
+                " WHERE rowid > ? ORDER BY rowid LIMIT " + COPY_CHUNK_SIZE + ")", args);
+        if (last == null) return Long.MAX_VALUE;
+        db.execSQL("INSERT OR IGNORE INTO " + to + " (" + columnList + ") SELECT " + columnList + " FROM " + from +
+                " WHERE rowid > ? AND rowid <= ? ORDER BY rowid", new Object[]{afterRowId, last});
+        return Long.parseLong(last);
+    }
+
+    private static Set<String> columnsOf(SQLiteDatabase db, String table) {
+        Set<String> columns = new LinkedHashSet<>();
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getString(cursor.getColumnIndexOrThrow("name")));
+            }
+        } finally {
+            cursor.close();
+        }
+        return columns;
+    }
+
+    // Author links of existing books: done now for a small library, queued otherwise
+    private static void scheduleAuthorBackfill(SQLiteDatabase db) {
+        long rows = DatabaseUtils.queryNumEntries(db, DatabaseHelper.TABLE_BOOKS);
+        if (rows <= ONLINE_THRESHOLD_ROWS) {
+            long after = -1;
+            while (after != Long.MAX_VALUE) {
+                after = backfillAuthors(db, after);
+            }
+            return;
+        }
+        schedule(db, BACKFILL_AUTHORS);
+        Log.d(TAG, rows + " saved books, author links will be backfilled after start-up");
+    }
+
+    // Search index of existing books: rebuilt now for a small library, queued
+    // otherwise; until then the FTS triggers skip the books not indexed yet
+    private static void scheduleFtsBackfill(SQLiteDatabase db) {
+        long rows = DatabaseUtils.queryNumEntries(db, DatabaseHelper.TABLE_BOOKS);
+        if (rows <= ONLINE_THRESHOLD_ROWS) {
+            db.execSQL("INSERT INTO " + DatabaseHelper.TABLE_BOOKS_FTS + "("
+                    + DatabaseHelper.TABLE_BOOKS_FTS + ") VALUES('rebuild')");
+            return;
+        }
+        schedule(db, BACKFILL_FTS);
+        Log.d(TAG, rows + " saved books, the search index will be built after start-up");
+    }
+
+    static void createBackfillTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BACKFILLS +
+                " (name TEXT PRIMARY KEY, last_row_id INTEGER NOT NULL)");
+    }
+
+    private static void schedule(SQLiteDatabase db, String backfill) {
+        createBackfillTable(db);
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_BACKFILLS + " (name, last_row_id) VALUES (?, -1)",
+                new Object[]{backfill});
+    }
+
+    // Finish the queued backfills, one short transaction per chunk. Safe to call
+    // on every start.
+    static void runPendingBackfills(SQLiteDatabase db) {
+        while (runNextBackfillChunk(db)) {
+            // Keep going until every backfill is done
+        }
+    }
+
+    // Run one chunk of the first queued backfill, in its own transaction so the
+    // caller can let saves and reads in before the next one. Returns whether any
+    // backfill is left.
+    static boolean runNextBackfillChunk(SQLiteDatabase db) {
+        createBackfillTable(db);
+        for (String backfill : BACKFILLS) {
+            Cursor cursor = db.rawQuery("SELECT last_row_id FROM " + TABLE_BACKFILLS + " WHERE name=?",
+                    new String[]{backfill});
+            long after;
+            try {
+                if (!cursor.moveToFirst()) continue;
+                after = cursor.getLong(0);
+            } finally {
+                cursor.close();
+            }
+            runBackfillChunk(db, backfill, after);
+            return true;
+        }
+        return false;
+    }
+
+    private static void runBackfillChunk(SQLiteDatabase db, String backfill, long after) {
+        db.beginTransaction();
+        try {
+            after = backfillChunk(db, backfill, after);
+            if (after == Long.MAX_VALUE) {
+                db.delete(TABLE_BACKFILLS, "name=?", new String[]{backfill});
+                if (backfill.equals(BACKFILL_V1_BOOKS)) db.execSQL("DROP TABLE IF EXISTS " + BACKFILL_V1_BOOKS);
+                Log.d(TAG, "Backfill " + backfill + " finished");
+            } else {
+                db.execSQL("UPDATE " + TABLE_BACKFILLS + " SET last_row_id=? WHERE name=?",
+                        new Object[]{after, backfill});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // One chunk of a queued backfill. Returns the last row id done, or
+    // Long.MAX_VALUE when no rows are left.
+    private static long backfillChunk(SQLiteDatabase db, String backfill, long afterRowId) {
+        switch (backfill) {
+            case BACKFILL_V1_BOOKS:
+                return copyChunk(db, BACKFILL_V1_BOOKS, DatabaseHelper.TABLE_BOOKS, afterRowId);
+            case BACKFILL_AUTHORS:
+                return backfillAuthors(db, afterRowId);
+            case BACKFILL_FTS:
+                return backfillFts(db, afterRowId);
+            default:
+                throw new IllegalStateException("Unknown backfill " + backfill);
+        }
+    }
+
+    // Index the next chunk of books. Books saved since the upgrade have higher
+    // ids, the triggers leave them to this loop as well.
+    private static long backfillFts(SQLiteDatabase db, long afterRowId) {
+        String last = DatabaseUtils.stringForQuery(db, "SELECT MAX(id) FROM (SELECT id FROM " +
+                DatabaseHelper.TABLE_BOOKS + " WHERE id > ? ORDER BY id LIMIT " + COPY_CHUNK_SIZE + ")",
+                new String[]{String.valueOf(afterRowId)});
+        if (last == null) return Long.MAX_VALUE;
+        db.execSQL("INSERT INTO " + DatabaseHelper.TABLE_BOOKS_FTS +
+                "(docid, title, subtitle, authors, publisher, description) " +
+                "SELECT id, title, subtitle, authors, publisher, description FROM " + DatabaseHelper.TABLE_BOOKS +
+                " WHERE id > ? AND id <= ?", new Object[]{afterRowId, last});
+        return Long.parseLong(last);
+    }
+
+    // Move the comma-joined authors of the next chunk of books into the author
+    // tables. Books saved since the upgrade are already linked and skipped.
+    // Returns the last row id done, or Long.MAX_VALUE when no rows are left.
+    private static long backfillAuthors(SQLiteDatabase db, long afterRowId) {
+        Cursor cursor = db.rawQuery("SELECT id, authors FROM " + DatabaseHelper.TABLE_BOOKS + " b" +
+                " WHERE id > ? AND NOT EXISTS (SELECT 1 FROM " + DatabaseHelper.TABLE_BOOK_AUTHORS +
+                " WHERE book_id = b.id) ORDER BY id LIMIT " + COPY_CHUNK_SIZE,
+                new String[]{String.valueOf(afterRowId)});
+        DatabaseHelper.AuthorLinker linker = new DatabaseHelper.AuthorLinker(db);
+        long last = Long.MAX_VALUE;
+        try {
+            while (cursor.moveToNext()) {
+                last = cursor.getLong(0);
+                String authorsStr = cursor.getString(1);
+                ArrayList<String> authors = new ArrayList<>();
+                if (authorsStr != null && !authorsStr.isEmpty()) {
+                    for (String author : authorsStr.split(",")) {
+                        authors.add(author);
+                    }
+                }
+                linker.link(last, authors);
+            }
+        } finally {
+            cursor.close();
+            linker.close();
+        }
+        return last;
+    }
+}
@@ -10,7 +10,7 @@ import androidx.appcompat.app.AppCompatActivity;
 public class LoginActivity extends AppCompatActivity {
     EditText username, password;
     Button loginBtn, registerBtn;
-    DatabaseHelper db;
+    BookDao dao;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -21,7 +21,7 @@ public class LoginActivity extends AppCompatActivity {
         password = findViewById(R.id.loginPassword);
         loginBtn = findViewById(R.id.loginBtn);
         registerBtn = findViewById(R.id.gotoRegisterBtn);
-        db = new DatabaseHelper(this);
+        dao = BookLibraryApp.getInstance().getBookDao();
 
         loginBtn.setOnClickListener(v -> {
             String user = username.getText().toString();
@@ -32,17 +32,21 @@ public class LoginActivity extends AppCompatActivity {
                 return;
             }
 
-            if (db.checkLogin(user, pass)) {
-                // Set current user in DatabaseHelper
-                DatabaseHelper.setCurrentUser(user);
-
-                Toast.makeText(this, "Đăng nhập thành công", Toast.LENGTH_SHORT).show();
-                Intent intent = new Intent(LoginActivity.this, MainActivity.class);
-                startActivity(intent);
-                finish(); // đóng LoginActivity để không quay lại khi ấn nút back
-            } else {
-                Toast.makeText(this, "Sai tài khoản hoặc mật khẩu", Toast.LENGTH_SHORT).show();
-            }
+            loginBtn.setEnabled(false);
+            dao.checkLogin(user, pass, success -> {
+                loginBtn.setEnabled(true);
+                if (success) {
+                    // Set current user and remember it for the next launches
+                    BookLibraryApp.getInstance().getSessionStore().start(user);
+
+                    Toast.makeText(this, "Đăng nhập thành công", Toast.LENGTH_SHORT).show();
+                    Intent intent = new Intent(LoginActivity.this, MainActivity.class);
+                    startActivity(intent);
+                    finish(); // đóng LoginActivity để không quay lại khi ấn nút back
+                } else {
+                    Toast.makeText(this, "Sai tài khoản hoặc mật khẩu", Toast.LENGTH_SHORT).show();
+                }
+            });
         });
 
         registerBtn.setOnClickListener(v -> {
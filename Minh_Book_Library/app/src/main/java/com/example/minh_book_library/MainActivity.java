@@ -1,7 +1,14 @@
 package com.example.minh_book_library;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -13,41 +20,65 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.activity.EdgeToEdge;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import com.android.volley.Request;
-import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import java.util.ArrayList;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
 
+    // Search-as-you-type: wait for the user to stop typing before searching
+    private static final long SEARCH_DEBOUNCE_MS = 400;
+    private static final int MIN_QUERY_LENGTH = 2;
+    // Spare book rows kept for both lists together, and off-screen rows each list keeps bound
+    private static final int BOOK_ROW_POOL_SIZE = 20;
+    private static final int ITEM_VIEW_CACHE_SIZE = 4;
+
     // Variables for networking and UI components
-    private RequestQueue mRequestQueue;
     private ArrayList<BookInfo> bookInfoArrayList;
+    private BookAdapter searchAdapter;
+    private SearchPager searchPager;
+    private SearchViewModel searchViewModel;
+    private ArrayList<BookInfo> savedBooks;
+    private BookAdapter savedAdapter;
+    private SavedBooksPager savedPager;
     private ProgressBar progressBar;
     private EditText searchEdt;
     private ImageButton searchBtn;
     private TextView welcomeText, savedBooksTitle;
     private RecyclerView recyclerView, savedBooksRecyclerView;
-    private DatabaseHelper db;
+    private BookDao dao;
     private boolean showingSavedBooks = true;
+    // Cold-start metric, logged once per process
+    private static boolean firstSavedPageShown = false;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = this::searchAsYouType;
+
+    // Pick a file to export the saved library to / import it from
+    private final ActivityResultLauncher<String> exportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/json"), this::exportLibrary);
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::importLibrary);
     private Button logoutBtn;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Nobody is logged in (e.g. the session expired), ask for the login first
+        if (DatabaseHelper.getCurrentUser().isEmpty()) {
+            startActivity(new Intent(this, LoginActivity.class));
+            finish();
+            return;
+        }
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main);
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
@@ -55,9 +86,11 @@ public class MainActivity extends AppCompatActivity {
             v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
             return insets;
         });
+        // The theme has no action bar, the toolbar carries the options menu
+        setSupportActionBar(findViewById(R.id.toolbar));
 
-        // Initialize database helper
-        db = new DatabaseHelper(this);
+        // Database work runs off the UI thread
+        dao = BookLibraryApp.getInstance().getBookDao();
 
         // Initializing UI components
         progressBar = findViewById(R.id.progressBar);
@@ -69,16 +102,112 @@ public class MainActivity extends AppCompatActivity {
         savedBooksRecyclerView = findViewById(R.id.savedBooksRv);
         logoutBtn = findViewById(R.id.logoutButton);
 
-        // Set up RecyclerViews
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        savedBooksRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        // Set up RecyclerViews. Both show book_rv_item rows, so rows released by one
+        // (e.g. when its adapter is swapped) are reused by the other instead of inflated again
+        RecyclerView.RecycledViewPool bookRowPool = new RecyclerView.RecycledViewPool();
+        bookRowPool.setMaxRecycledViews(0, BOOK_ROW_POOL_SIZE);
+        for (RecyclerView list : new RecyclerView[]{recyclerView, savedBooksRecyclerView}) {
+            list.setLayoutManager(new LinearLayoutManager(this));
+            // The list size comes from the layout constraints, not from its rows
+            list.setHasFixedSize(true);
+            list.setRecycledViewPool(bookRowPool);
+            list.setItemViewCacheSize(ITEM_VIEW_CACHE_SIZE);
+        }
+
+        // Search results are paged into one list, the adapter gets a copy after every change.
+        // The pager lives in the view model, so rotation keeps its pages and requests.
+        searchViewModel = new ViewModelProvider(this).get(SearchViewModel.class);
+        bookInfoArrayList = searchViewModel.getResults();
+        searchPager = searchViewModel.getPager();
+        searchAdapter = new BookAdapter(this);
+        recyclerView.setAdapter(searchAdapter);
+        recyclerView.addOnScrollListener(searchAdapter.newPreloader());
+        searchViewModel.setListener(new SearchPager.Listener() {
+            @Override
+            public void onPageInserted(int positionStart, int count) {
+                progressBar.setVisibility(View.GONE);
+                // Show search results (they replace the offline matches)
+                savedBooksTitle.setText("Search Results:");
+                savedBooksRecyclerView.setVisibility(View.GONE);
+                recyclerView.setVisibility(View.VISIBLE);
+                searchAdapter.submitList(new ArrayList<>(bookInfoArrayList));
+                Log.d(TAG, "Search list now has " + bookInfoArrayList.size() + " books");
+            }
+
+            @Override
+            public void onPageRemoved(int positionStart, int count) {
+                searchAdapter.submitList(new ArrayList<>(bookInfoArrayList));
+            }
+
+            @Override
+            public void onEmpty() {
+                progressBar.setVisibility(View.GONE);
+                Toast.makeText(MainActivity.this, "Không tìm thấy sách", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(String message) {
+                progressBar.setVisibility(View.GONE);
+                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+        });
+        searchPager.attachTo(recyclerView);
+
+        // Put back the results of the previous instance, kept in memory or
+        // restored from the saved state snapshot
+        showingSavedBooks = searchViewModel.isShowingSavedBooks();
+        if (!bookInfoArrayList.isEmpty()) {
+            searchAdapter.submitList(new ArrayList<>(bookInfoArrayList));
+        }
+        if (!showingSavedBooks) {
+            savedBooksTitle.setText("Search Results:");
+            savedBooksRecyclerView.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+            if (searchPager.isLoading()) progressBar.setVisibility(View.VISIBLE);
+        }
+
+        // Saved books are read from the database a page at a time
+        savedBooks = new ArrayList<>();
+        savedAdapter = new BookAdapter(this);
+        savedBooksRecyclerView.addOnScrollListener(savedAdapter.newPreloader());
+        savedPager = new SavedBooksPager(dao, savedBooks, new SavedBooksPager.Listener() {
+            @Override
+            public void onPageInserted(int positionStart, int count) {
+                savedAdapter.submitList(new ArrayList<>(savedBooks));
+            }
+
+            @Override
+            public void onPageRemoved(int positionStart, int count) {
+                savedAdapter.submitList(new ArrayList<>(savedBooks));
+            }
+
+            @Override
+            public void onFirstPageLoaded(boolean empty) {
+                if (!firstSavedPageShown) {
+                    firstSavedPageShown = true;
+                    Log.d(TAG, "First saved books shown " + (SystemClock.elapsedRealtime()
+                            - Process.getStartElapsedRealtime()) + " ms after process start");
+                    // Ends "time to full display" in StartupBenchmark's StartupTimingMetric
+                    reportFullyDrawn();
+                }
+                // The user may have started a search while the books were loading
+                if (!showingSavedBooks) return;
+                if (empty) {
+                    savedBooksTitle.setText("Chưa có sách nào được lưu");
+                    savedBooksRecyclerView.setVisibility(View.GONE);
+                } else {
+                    savedBooksTitle.setText("Sách đã lưu:");
+                    savedBooksRecyclerView.setVisibility(View.VISIBLE);
+                }
+            }
+        });
+        savedPager.attachTo(savedBooksRecyclerView);
 
         // Set welcome message
         String username = DatabaseHelper.getCurrentUser();
         welcomeText.setText("Xin chào, " + username + "!");
 
-        // Display saved books
-        displaySavedBooks();
+        // Saved books are displayed by onResume, which always follows
 
         // Setting click listener on the search button
         searchBtn.setOnClickListener(v -> {
@@ -88,17 +217,45 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
 
+            // Search now, no need to wait for the debounce
+            searchHandler.removeCallbacks(debouncedSearch);
+
             // Show progress bar while searching
             progressBar.setVisibility(View.VISIBLE);
-            getBooksInfo(query);
             showingSavedBooks = false;
             savedBooksTitle.setText("Search Results:");
+            getBooksInfo(query);
         });
 
         // Set click listener for logout button
         logoutBtn.setOnClickListener(v -> performLogout());
     }
 
+    @Override
+    protected void onPostCreate(Bundle savedInstanceState) {
+        super.onPostCreate(savedInstanceState);
+        // searchEdt is null when onCreate sent the user to the login screen
+        if (searchEdt == null) return;
+
+        // Search automatically once the user pauses typing. Added only now, after
+        // onRestoreInstanceState put back the text, so a restored query is not searched again.
+        searchEdt.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchHandler.removeCallbacks(debouncedSearch);
+                searchHandler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
+            }
+        });
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -110,16 +267,11 @@ public class MainActivity extends AppCompatActivity {
 
     // Display saved books
     private void displaySavedBooks() {
-        ArrayList<BookInfo> savedBooks = db.getSavedBooks();
-        if (savedBooks.isEmpty()) {
-            savedBooksTitle.setText("Chưa có sách nào được lưu");
-            savedBooksRecyclerView.setVisibility(View.GONE);
-        } else {
-            savedBooksTitle.setText("Sách đã lưu:");
-            savedBooksRecyclerView.setVisibility(View.VISIBLE);
-            BookAdapter adapter = new BookAdapter(savedBooks, this);
-            savedBooksRecyclerView.setAdapter(adapter);
+        // Offline search matches may have replaced the saved books adapter
+        if (savedBooksRecyclerView.getAdapter() != savedAdapter) {
+            savedBooksRecyclerView.setAdapter(savedAdapter);
         }
+        savedPager.refresh();
     }
 
     // Create menu with logout option
@@ -136,6 +288,12 @@ public class MainActivity extends AppCompatActivity {
         if (id == R.id.menu_logout) {
             performLogout();
             return true;
+        } else if (id == R.id.menu_export) {
+            exportLauncher.launch("saved_books.json");
+            return true;
+        } else if (id == R.id.menu_import) {
+            importLauncher.launch(new String[]{"application/json"});
+            return true;
         } else if (id == R.id.menu_show_saved) {
             showingSavedBooks = true;
             recyclerView.setVisibility(View.GONE);
@@ -146,6 +304,39 @@ public class MainActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    private void exportLibrary(Uri uri) {
+        if (uri == null) return;
+        progressBar.setVisibility(View.VISIBLE);
+        dao.exportLibrary(getContentResolver(), uri,
+                done -> Log.d(TAG, "Exported " + done + " books"),
+                count -> {
+                    progressBar.setVisibility(View.GONE);
+                    if (count < 0) {
+                        Toast.makeText(this, "Xuất thư viện thất bại", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Đã xuất " + count + " sách", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    private void importLibrary(Uri uri) {
+        if (uri == null) return;
+        progressBar.setVisibility(View.VISIBLE);
+        dao.importLibrary(getContentResolver(), uri,
+                done -> savedBooksTitle.setText("Đang nhập: " + done + " sách..."),
+                count -> {
+                    progressBar.setVisibility(View.GONE);
+                    if (count < 0) {
+                        Toast.makeText(this, "Nhập thư viện thất bại", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Đã nhập " + count + " sách", Toast.LENGTH_SHORT).show();
+                    }
+                    if (showingSavedBooks) {
+                        displaySavedBooks();
+                    }
+                });
+    }
+
     // Improved logout function
     private void performLogout() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
@@ -153,13 +344,9 @@ public class MainActivity extends AppCompatActivity {
         builder.setMessage("Bạn có chắc chắn muốn đăng xuất?");
 
         builder.setPositiveButton("Có", (dialog, which) -> {
-            DatabaseHelper.setCurrentUser("");
-            if (bookInfoArrayList != null) {
-                bookInfoArrayList.clear();
-            }
-            if (mRequestQueue != null) {
-                mRequestQueue.cancelAll(request -> true);
-            }
+            BookLibraryApp.getInstance().getSessionStore().end();
+            searchPager.cancel();
+            BookLibraryApp.getInstance().clearCache();
             Toast.makeText(MainActivity.this, "Đăng xuất thành công", Toast.LENGTH_SHORT).show();
             Intent intent = new Intent(MainActivity.this, LoginActivity.class);
             intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -172,105 +359,74 @@ public class MainActivity extends AppCompatActivity {
         dialog.show();
     }
 
-    // Function to fetch book data from Google Books API
-    private void getBooksInfo(String query) {
-        bookInfoArrayList = new ArrayList<>();
-        mRequestQueue = Volley.newRequestQueue(this);
-        mRequestQueue.getCache().clear();
+    // Called after the user stopped typing for SEARCH_DEBOUNCE_MS
+    private void searchAsYouType() {
+        String query = searchEdt.getText().toString().trim();
+        if (query.length() < MIN_QUERY_LENGTH) {
+            // Query was cleared, stop any search still running for the old text
+            searchPager.cancel();
+            progressBar.setVisibility(View.GONE);
+            return;
+        }
+        if (SearchResultCache.normalizeQuery(query).equals(searchPager.getQuery()) && !showingSavedBooks) return;
 
-        // Construct API URL using the search query
-        String url = "https://www.googleapis.com/books/v1/volumes?q=" + query + "&maxResults=20";
+        progressBar.setVisibility(View.VISIBLE);
+        showingSavedBooks = false;
+        savedBooksTitle.setText("Search Results:");
+        getBooksInfo(query);
+    }
 
-        Log.d(TAG, "API URL: " + url);
+    @Override
+    protected void onDestroy() {
+        searchHandler.removeCallbacks(debouncedSearch);
+        Log.d(TAG, "Book rows inflated so far: " + BookAdapter.getCreatedViewHolderCount());
+        Log.d(TAG, BookCovers.describe());
+        // searchViewModel is null when onCreate sent the user to the login screen.
+        // Its requests keep going for the recreated activity, onCleared() cancels them.
+        if (searchViewModel != null) {
+            searchViewModel.setListener(null);
+        }
+        super.onDestroy();
+    }
 
-        JsonObjectRequest booksObjRequest = new JsonObjectRequest(Request.Method.GET, url, null,
-                response -> {
-                    progressBar.setVisibility(View.GONE);
-                    Log.d(TAG, "API Response received");
-
-                    try {
-                        if (!response.has("items")) {
-                            Toast.makeText(this, "Không tìm thấy sách", Toast.LENGTH_SHORT).show();
-                            return;
-                        }
-
-                        JSONArray itemsArray = response.getJSONArray("items");
-                        Log.d(TAG, "Found " + itemsArray.length() + " books");
-
-                        for (int i = 0; i < itemsArray.length(); i++) {
-                            JSONObject itemsObj = itemsArray.getJSONObject(i);
-                            JSONObject volumeObj = itemsObj.getJSONObject("volumeInfo");
-
-                            // Extract book details with default values
-                            String title = volumeObj.optString("title", "Unknown Title");
-                            String subtitle = volumeObj.optString("subtitle", "");
-                            JSONArray authorsArray = volumeObj.optJSONArray("authors");
-                            String publisher = volumeObj.optString("publisher", "Unknown Publisher");
-                            String publishedDate = volumeObj.optString("publishedDate", "Unknown Date");
-                            String description = volumeObj.optString("description", "No description available");
-                            int pageCount = volumeObj.optInt("pageCount", 0);
-
-                            // Get book thumbnail if available
-                            JSONObject imageLinks = volumeObj.optJSONObject("imageLinks");
-                            String thumbnail = "";
-                            if (imageLinks != null) {
-                                // Try to get the best quality image available
-                                if (imageLinks.has("thumbnail")) {
-                                    thumbnail = imageLinks.optString("thumbnail", "");
-                                } else if (imageLinks.has("smallThumbnail")) {
-                                    thumbnail = imageLinks.optString("smallThumbnail", "");
-                                }
-                            }
-
-                            Log.d(TAG, "Book " + i + " - Title: " + title + ", Thumbnail: " + thumbnail);
-
-                            // Get book preview and info links
-                            String previewLink = volumeObj.optString("previewLink", "");
-                            String infoLink = volumeObj.optString("infoLink", "");
-
-                            // Convert authors JSONArray to ArrayList<String>
-                            ArrayList<String> authorsArrayList = new ArrayList<>();
-                            if (authorsArray != null) {
-                                for (int j = 0; j < authorsArray.length(); j++) {
-                                    authorsArrayList.add(authorsArray.optString(j, "Unknown Author"));
-                                }
-                            } else {
-                                authorsArrayList.add("Unknown Author");
-                            }
-
-                            // Create BookInfo object with fetched details
-                            BookInfo bookInfo = new BookInfo(
-                                    title, subtitle, authorsArrayList, publisher, publishedDate,
-                                    description, pageCount, thumbnail, previewLink, infoLink, ""
-                            );
-
-                            bookInfoArrayList.add(bookInfo);
-                        }
-
-                        // Show search results
-                        savedBooksRecyclerView.setVisibility(View.GONE);
-                        recyclerView.setVisibility(View.VISIBLE);
-
-                        // Set up RecyclerView with BookAdapter to display the book list
-                        BookAdapter adapter = new BookAdapter(bookInfoArrayList, this);
-                        recyclerView.setAdapter(adapter);
-
-                        Log.d(TAG, "RecyclerView adapter set with " + bookInfoArrayList.size() + " books");
-
-                    } catch (JSONException e) {
-                        e.printStackTrace();
-                        Log.e(TAG, "JSON parsing error: " + e.getMessage());
-                        Toast.makeText(this, "Error parsing book data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                },
-                error -> {
-                    progressBar.setVisibility(View.GONE);
-                    Log.e(TAG, "API request error: " + error.getMessage());
-                    Toast.makeText(this, "Network error: " + error.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        if (searchViewModel != null) {
+            searchViewModel.setShowingSavedBooks(showingSavedBooks);
+        }
+        super.onSaveInstanceState(outState);
+    }
 
-        mRequestQueue.add(booksObjRequest);
+    // Function to fetch book data from Google Books API, one page at a time
+    private void getBooksInfo(String query) {
+        SearchResultCache cache = BookLibraryApp.getInstance().getSearchResultCache();
+        // Saved books are searched offline and shown right away
+        showLocalMatches(query);
+
+        Log.d(TAG, "Searching for: " + query + " (cache hits " + cache.getHitCount()
+                + ", misses " + cache.getMissCount() + ", evictions " + cache.getEvictionCount() + ")");
+        Log.d(TAG, BookLibraryApp.getInstance().getCircuitBreaker().toString());
+        searchPager.search(query);
     }
+
+    // Show saved books matching the query until the remote results arrive
+    private void showLocalMatches(String query) {
+        recyclerView.setVisibility(View.GONE);
+        savedBooksRecyclerView.setVisibility(View.GONE);
+        dao.searchSavedBooks(query, localMatches -> {
+            // Too late: remote results are already shown or the query changed
+            if (localMatches.isEmpty() || showingSavedBooks || recyclerView.getVisibility() == View.VISIBLE
+                    || !SearchResultCache.normalizeQuery(query).equals(searchPager.getQuery())) {
+                return;
+            }
+            savedBooksTitle.setText("Sách đã lưu phù hợp:");
+            savedBooksRecyclerView.setVisibility(View.VISIBLE);
+            BookAdapter localAdapter = new BookAdapter(this);
+            localAdapter.submitList(localMatches);
+            savedBooksRecyclerView.setAdapter(localAdapter);
+        });
+    }
+
     @Override
     public void onBackPressed() {
         // Kiểm tra nếu đang hiển thị kết quả tìm kiếm, thì quay lại danh sách đã lưu
@@ -8,14 +8,14 @@ import androidx.appcompat.app.AppCompatActivity;
 public class RegisterActivity extends AppCompatActivity {
     EditText username, password;
     Button registerBtn;
-    DatabaseHelper db;
+    BookDao dao;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_register);
 
-        db = new DatabaseHelper(this);
+        dao = BookLibraryApp.getInstance().getBookDao();
 
         username = findViewById(R.id.username);
         password = findViewById(R.id.password);
@@ -28,17 +28,20 @@ public class RegisterActivity extends AppCompatActivity {
             if (user.isEmpty() || pass.isEmpty()) {
                 Toast.makeText(this, "Vui lòng nhập đầy đủ", Toast.LENGTH_SHORT).show();
             } else {
-                boolean success = db.registerUser(user, pass);
-                if (success) {
-                    Toast.makeText(this, "Đăng ký thành công", Toast.LENGTH_SHORT).show();
-                    Intent intent = new Intent(RegisterActivity.this, LoginActivity.class);
-                    startActivity(intent);
-                    finish(); // để không quay lại màn đăng ký khi ấn back
-                }
-
-                else {
-                    Toast.makeText(this, "Tài khoản đã tồn tại", Toast.LENGTH_SHORT).show();
-                }
+                registerBtn.setEnabled(false);
+                dao.registerUser(user, pass, success -> {
+                    registerBtn.setEnabled(true);
+                    if (success) {
+                        Toast.makeText(this, "Đăng ký thành công", Toast.LENGTH_SHORT).show();
+                        Intent intent = new Intent(RegisterActivity.this, LoginActivity.class);
+                        startActivity(intent);
+                        finish(); // để không quay lại màn đăng ký khi ấn back
+                    }
+
+                    else {
+                        Toast.makeText(this, "Tài khoản đã tồn tại", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         });
     }
@@ -0,0 +1,151 @@
+package com.example.minh_book_library;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+// Loads the saved books of the current user a window at a time (keyset
+// pagination by row id) into one list that is copied into the BookAdapter, so memory
+// stays the same whether the library has 100 or 100,000 books.
+public class SavedBooksPager {
+
+    public static final int PAGE_SIZE = 50;
+    // Start loading when this many rows are left beyond the viewport
+    public static final int PREFETCH_DISTANCE = 15;
+    // Only this many pages are kept in memory, pages far from the viewport are dropped
+    public static final int MAX_PAGES_IN_MEMORY = 4;
+
+    public interface Listener {
+        void onPageInserted(int positionStart, int count);
+
+        void onPageRemoved(int positionStart, int count);
+
+        // Called once per refresh with whether the user has any saved book at all
+        void onFirstPageLoaded(boolean empty);
+    }
+
+    private final BookDao dao;
+    private final ArrayList<BookInfo> books;
+    private final Listener listener;
+
+    private final ArrayDeque<DatabaseHelper.SavedBooksPage> pages = new ArrayDeque<>();
+    // Bumped on every refresh so pages of an older refresh are ignored
+    private int generation = 0;
+    private boolean loading = false;
+    private boolean reachedEnd = false;
+    // True once pages were dropped from the head and can be reloaded
+    private boolean headDropped = false;
+
+    public SavedBooksPager(BookDao dao, ArrayList<BookInfo> books, Listener listener) {
+        this.dao = dao;
+        this.books = books;
+        this.listener = listener;
+    }
+
+    // Reload from the first saved book
+    public void refresh() {
+        generation++;
+        pages.clear();
+        reachedEnd = false;
+        headDropped = false;
+        loading = true;
+
+        final int requestedGeneration = generation;
+        dao.getSavedBooksAfter(-1, PAGE_SIZE, page -> {
+            if (requestedGeneration != generation) return;
+            loading = false;
+            int oldSize = books.size();
+            books.clear();
+            if (oldSize > 0) {
+                listener.onPageRemoved(0, oldSize);
+            }
+            onPageLoaded(page, true);
+            listener.onFirstPageLoaded(page.books.isEmpty());
+        });
+    }
+
+    // Watch the RecyclerView and load pages before the user reaches either end
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm == null || loading || pages.isEmpty()) return;
+
+                if (dy > 0 && lm.findLastVisibleItemPosition() >= books.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                } else if (dy < 0 && lm.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadPreviousPage();
+                }
+            }
+        });
+    }
+
+    private void loadNextPage() {
+        if (reachedEnd) return;
+        loading = true;
+        final int requestedGeneration = generation;
+        dao.getSavedBooksAfter(pages.peekLast().lastRowId, PAGE_SIZE, page -> {
+            if (requestedGeneration != generation) return;
+            loading = false;
+            onPageLoaded(page, true);
+        });
+    }
+
+    // Reload a page that was dropped from the head of the list
+    private void loadPreviousPage() {
+        if (!headDropped) return;
+        loading = true;
+        final int requestedGeneration = generation;
+        dao.getSavedBooksBefore(pages.peekFirst().firstRowId, PAGE_SIZE, page -> {
+            if (requestedGeneration != generation) return;
+            loading = false;
+            onPageLoaded(page, false);
+        });
+    }
+
+    private void onPageLoaded(DatabaseHelper.SavedBooksPage page, boolean append) {
+        if (page.books.isEmpty()) {
+            if (append) {
+                reachedEnd = true;
+            } else {
+                headDropped = false;
+            }
+            return;
+        }
+        if (page.books.size() < PAGE_SIZE) {
+            if (append) {
+                reachedEnd = true;
+            } else {
+                headDropped = false;
+            }
+        }
+
+        if (append) {
+            pages.addLast(page);
+            int positionStart = books.size();
+            books.addAll(page.books);
+            listener.onPageInserted(positionStart, page.books.size());
+            if (pages.size() > MAX_PAGES_IN_MEMORY) {
+                DatabaseHelper.SavedBooksPage dropped = pages.pollFirst();
+                books.subList(0, dropped.books.size()).clear();
+                listener.onPageRemoved(0, dropped.books.size());
+                headDropped = true;
+            }
+        } else {
+            pages.addFirst(page);
+            books.addAll(0, page.books);
+            listener.onPageInserted(0, page.books.size());
+            if (pages.size() > MAX_PAGES_IN_MEMORY) {
+                DatabaseHelper.SavedBooksPage dropped = pages.pollLast();
+                int positionStart = books.size() - dropped.books.size();
+                books.subList(positionStart, books.size()).clear();
+                listener.onPageRemoved(positionStart, dropped.books.size());
+                reachedEnd = false;
+            }
+        }
+    }
+}
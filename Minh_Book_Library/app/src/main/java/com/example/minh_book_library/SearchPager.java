@@ -0,0 +1,329 @@
+package com.example.minh_book_library;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+// Loads Google Books search results page by page (startIndex/maxResults)
+// into one list that is copied into the BookAdapter.
+public class SearchPager {
+
+    private static final String TAG = "SearchPager";
+
+    // Google Books allows at most 40 results per page
+    public static final int PAGE_SIZE = 20;
+    // Start loading the next page when this many rows are left below the viewport
+    public static final int PREFETCH_DISTANCE = 10;
+    // Only this many pages are kept in memory, pages far from the viewport are dropped
+    public static final int MAX_PAGES_IN_MEMORY = 5;
+
+    public interface Listener {
+        // A page was inserted at positionStart in the shared list
+        void onPageInserted(int positionStart, int count);
+
+        // A page far from the viewport was removed from the shared list
+        void onPageRemoved(int positionStart, int count);
+
+        // The first page had no results at all
+        void onEmpty();
+
+        void onError(String message);
+    }
+
+    // One loaded page: where it starts on the server and which rows it added
+    private static class Page {
+        final int startIndex;
+        final List<BookInfo> books;
+
+        Page(int startIndex, List<BookInfo> books) {
+            this.startIndex = startIndex;
+            this.books = books;
+        }
+    }
+
+    private final BooksRequestCoalescer coalescer;
+    private final SearchResultCache resultCache;
+    private final Object requestTag;
+    private final ArrayList<BookInfo> books;
+    private final Listener listener;
+
+    private final ArrayDeque<Page> pages = new ArrayDeque<>();
+    private final HashSet<String> loadedKeys = new HashSet<>();
+
+    private String query = "";
+    // Bumped on every new search so responses of older searches can be recognized
+    private int generation = 0;
+    private int totalItems = Integer.MAX_VALUE;
+    private boolean loading = false;
+    private boolean reachedEnd = false;
+
+    public SearchPager(BooksRequestCoalescer coalescer, SearchResultCache resultCache, Object requestTag,
+                       ArrayList<BookInfo> books, Listener listener) {
+        this.coalescer = coalescer;
+        this.resultCache = resultCache;
+        this.requestTag = requestTag;
+        this.books = books;
+        this.listener = listener;
+    }
+
+    // Start a new search, throwing away the pages of the previous one
+    public void search(String query) {
+        String normalized = SearchResultCache.normalizeQuery(query);
+        // A double tap: the first page of this very query is still on its way, keep waiting for it
+        if (loading && pages.isEmpty() && normalized.equals(this.query)) return;
+
+        // Stop the pages of the previous query before they use any more bandwidth
+        coalescer.cancelAll(requestTag);
+        this.query = normalized;
+        generation++;
+        pages.clear();
+        loadedKeys.clear();
+        totalItems = Integer.MAX_VALUE;
+        loading = false;
+        reachedEnd = false;
+
+        int oldSize = books.size();
+        books.clear();
+        if (oldSize > 0) {
+            listener.onPageRemoved(0, oldSize);
+        }
+        loadPage(0, true);
+    }
+
+    // Drop whatever is in flight without starting a new search
+    public void cancel() {
+        coalescer.cancelAll(requestTag);
+        generation++;
+        loading = false;
+    }
+
+    // Compact copy of the loaded pages for saved instance state: only what a row
+    // shows, so it stays far below the Binder transaction limit
+    public Bundle snapshot() {
+        int count = books.size();
+        String[] ids = new String[count];
+        String[] titles = new String[count];
+        String[] publishers = new String[count];
+        String[] dates = new String[count];
+        String[] thumbnails = new String[count];
+        int[] pageCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            BookInfo book = books.get(i);
+            ids[i] = book.getId();
+            titles[i] = book.getTitle();
+            publishers[i] = book.getPublisher();
+            dates[i] = book.getPublishedDate();
+            thumbnails[i] = book.getThumbnail();
+            pageCounts[i] = book.getPageCount();
+        }
+        int[] pageStarts = new int[pages.size()];
+        int[] pageSizes = new int[pages.size()];
+        int p = 0;
+        for (Page page : pages) {
+            pageStarts[p] = page.startIndex;
+            pageSizes[p] = page.books.size();
+            p++;
+        }
+
+        Bundle state = new Bundle();
+        state.putString("query", query);
+        state.putInt("totalItems", totalItems);
+        state.putBoolean("reachedEnd", reachedEnd);
+        state.putIntArray("pageStarts", pageStarts);
+        state.putIntArray("pageSizes", pageSizes);
+        state.putStringArray("ids", ids);
+        state.putStringArray("titles", titles);
+        state.putStringArray("publishers", publishers);
+        state.putStringArray("dates", dates);
+        state.putStringArray("thumbnails", thumbnails);
+        state.putIntArray("pageCounts", pageCounts);
+        return state;
+    }
+
+    // Put back the pages of a snapshot without any network call. The books only
+    // have their row fields (BookInfo.isSummary()); paging continues from there.
+    public void restore(Bundle state) {
+        String[] ids = state.getStringArray("ids");
+        int[] pageStarts = state.getIntArray("pageStarts");
+        int[] pageSizes = state.getIntArray("pageSizes");
+        if (ids == null || pageStarts == null || pageSizes == null) return;
+        String[] titles = state.getStringArray("titles");
+        String[] publishers = state.getStringArray("publishers");
+        String[] dates = state.getStringArray("dates");
+        String[] thumbnails = state.getStringArray("thumbnails");
+        int[] pageCounts = state.getIntArray("pageCounts");
+
+        generation++;
+        query = state.getString("query", "");
+        totalItems = state.getInt("totalItems", Integer.MAX_VALUE);
+        reachedEnd = state.getBoolean("reachedEnd");
+        loading = false;
+        pages.clear();
+        loadedKeys.clear();
+        books.clear();
+
+        int next = 0;
+        for (int p = 0; p < pageStarts.length; p++) {
+            List<BookInfo> pageBooks = new ArrayList<>();
+            for (int i = 0; i < pageSizes[p] && next < ids.length; i++, next++) {
+                BookInfo book = new BookInfo(titles[next], "", new ArrayList<>(), publishers[next], dates[next],
+                        "", pageCounts[next], thumbnails[next], "", "", "");
+                book.setId(ids[next]);
+                book.setSummary(true);
+                loadedKeys.add(book.getKey());
+                pageBooks.add(book);
+            }
+            pages.addLast(new Page(pageStarts[p], pageBooks));
+            books.addAll(pageBooks);
+        }
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    // Watch the RecyclerView and load pages before the user reaches either end
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm == null || loading || books.isEmpty()) return;
+
+                if (dy > 0 && lm.findLastVisibleItemPosition() >= books.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                } else if (dy < 0 && lm.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadPreviousPage();
+                }
+            }
+        });
+    }
+
+    void loadNextPage() {
+        if (reachedEnd || pages.isEmpty()) return;
+        Page last = pages.peekLast();
+        int next = last.startIndex + PAGE_SIZE;
+        if (next >= totalItems) {
+            reachedEnd = true;
+            return;
+        }
+        loadPage(next, true);
+    }
+
+    // Reload a page that was dropped from the head of the list
+    void loadPreviousPage() {
+        if (pages.isEmpty()) return;
+        int first = pages.peekFirst().startIndex;
+        if (first == 0) return;
+        loadPage(Math.max(0, first - PAGE_SIZE), false);
+    }
+
+    private void loadPage(int startIndex, boolean append) {
+        loading = true;
+        final int requestedGeneration = generation;
+        final String key = SearchResultCache.keyFor(query, startIndex);
+
+        // Serve from the result cache when we can, stale entries are refreshed in the background
+        resultCache.get(key, (cached, fresh) -> {
+            if (requestedGeneration != generation) return;
+            if (cached != null) {
+                loading = false;
+                onPageLoaded(startIndex, append, cached);
+                if (!fresh) {
+                    fetchPage(startIndex, append, key, requestedGeneration, false);
+                }
+                return;
+            }
+            fetchPage(startIndex, append, key, requestedGeneration, true);
+        });
+    }
+
+    // deliver is false for a background revalidation that only refreshes the cache
+    private void fetchPage(int startIndex, boolean append, String key,
+                           int requestedGeneration, boolean deliver) {
+        String url = BooksRequest.searchUrl(query, startIndex, PAGE_SIZE);
+        Log.d(TAG, "Loading page: " + url);
+
+        // Identical requests already in flight (double tap, rotation) are joined
+        coalescer.fetch(url, requestTag,
+                page -> {
+                    resultCache.put(key, page);
+                    // Ignore late pages of an older search
+                    if (!deliver || requestedGeneration != generation) return;
+                    loading = false;
+                    onPageLoaded(startIndex, append, page);
+                },
+                error -> {
+                    if (!deliver || requestedGeneration != generation) return;
+                    loading = false;
+                    Log.e(TAG, "API request error: " + error.getMessage());
+                    if (error instanceof CircuitBreaker.OpenError) {
+                        listener.onError("Máy chủ sách tạm thời không phản hồi, hãy thử lại sau");
+                    } else {
+                        listener.onError("Network error: " + error.getMessage());
+                    }
+                });
+    }
+
+    private void onPageLoaded(int startIndex, boolean append, BookPage response) {
+        totalItems = response.getTotalItems();
+        List<BookInfo> items = response.getBooks();
+
+        if (items.isEmpty()) {
+            if (append) reachedEnd = true;
+            if (books.isEmpty()) listener.onEmpty();
+            return;
+        }
+
+        // Pages can overlap on the server side, keep only volumes we don't already show
+        List<BookInfo> pageBooks = new ArrayList<>();
+        for (BookInfo book : items) {
+            if (loadedKeys.add(book.getKey())) {
+                pageBooks.add(book);
+            }
+        }
+
+        Page page = new Page(startIndex, pageBooks);
+        if (append) {
+            pages.addLast(page);
+            int positionStart = books.size();
+            books.addAll(pageBooks);
+            listener.onPageInserted(positionStart, pageBooks.size());
+            if (pages.size() > MAX_PAGES_IN_MEMORY) {
+                dropPage(pages.pollFirst(), 0);
+            }
+        } else {
+            pages.addFirst(page);
+            books.addAll(0, pageBooks);
+            listener.onPageInserted(0, pageBooks.size());
+            if (pages.size() > MAX_PAGES_IN_MEMORY) {
+                Page dropped = pages.pollLast();
+                dropPage(dropped, books.size() - dropped.books.size());
+                reachedEnd = false;
+            }
+        }
+    }
+
+    private void dropPage(Page page, int positionStart) {
+        int count = page.books.size();
+        Iterator<BookInfo> it = books.subList(positionStart, positionStart + count).iterator();
+        while (it.hasNext()) {
+            loadedKeys.remove(it.next().getKey());
+            it.remove();
+        }
+        listener.onPageRemoved(positionStart, count);
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.minh_book_library;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Two-tier cache of parsed search pages: an in-memory LRU in front of small
+// binary files in the app cache dir. Keys are built from the normalized query,
+// so "Harry Potter" and " harry  potter " share one entry.
+public class SearchResultCache {
+
+    private static final String TAG = "SearchResultCache";
+
+    private static final int FILE_VERSION = 1;
+    public static final int MEMORY_ENTRIES = 32;
+    public static final int MAX_DISK_ENTRIES = 200;
+    // Entries younger than this are served without asking the network
+    public static final long FRESH_TTL_MS = 10 * 60 * 1000L;
+    // Stale entries are still served (and revalidated) until they reach this age
+    public static final long MAX_STALE_MS = 24 * 60 * 60 * 1000L;
+
+    public interface Callback {
+        // page is null on a miss; fresh is false when the page should be revalidated
+        void onResult(BookPage page, boolean fresh);
+    }
+
+    // A cached page together with the time it was stored
+    private static class Entry {
+        final BookPage page;
+        final long savedAt;
+
+        Entry(BookPage page, long savedAt) {
+            this.page = page;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private final File dir;
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final LruCache<String, Entry> memory = new LruCache<String, Entry>(MEMORY_ENTRIES) {
+        @Override
+        protected void entryRemoved(boolean evicted, String key, Entry oldValue, Entry newValue) {
+            if (evicted) evictions.incrementAndGet();
+        }
+    };
+
+    public SearchResultCache(File dir) {
+        this.dir = dir;
+    }
+
+    // Trim, collapse whitespace and lower-case the query the user typed
+    public static String normalizeQuery(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Cache key for one page of a query, URL-encoded so it is safe as a file name part
+    public static String keyFor(String query, int startIndex) {
+        try {
+            return URLEncoder.encode(normalizeQuery(query), "UTF-8") + "@" + startIndex;
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Look a page up in memory first, then on disk; the callback runs on the main thread
+    public void get(String key, Callback callback) {
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            deliver(key, entry, callback);
+            return;
+        }
+        diskExecutor.execute(() -> {
+            Entry fromDisk = readFromDisk(key);
+            mainHandler.post(() -> {
+                if (fromDisk != null) memory.put(key, fromDisk);
+                deliver(key, fromDisk, callback);
+            });
+        });
+    }
+
+    public void put(String key, BookPage page) {
+        Entry entry = new Entry(page, System.currentTimeMillis());
+        memory.put(key, entry);
+        diskExecutor.execute(() -> writeToDisk(key, entry));
+    }
+
+    public void remove(String key) {
+        memory.remove(key);
+        diskExecutor.execute(() -> fileFor(key).delete());
+    }
+
+    public void clear() {
+        memory.evictAll();
+        diskExecutor.execute(() -> {
+            File[] files = dir.listFiles();
+            if (files == null) return;
+            for (File f : files) f.delete();
+        });
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void deliver(String key, Entry entry, Callback callback) {
+        long age = entry == null ? 0 : System.currentTimeMillis() - entry.savedAt;
+        if (entry == null || age > MAX_STALE_MS) {
+            if (entry != null) {
+                // Too old to be shown at all
+                evictions.incrementAndGet();
+                remove(key);
+            }
+            misses.incrementAndGet();
+            callback.onResult(null, false);
+            return;
+        }
+        hits.incrementAndGet();
+        callback.onResult(entry.page, age <= FRESH_TTL_MS);
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, Integer.toHexString(key.hashCode()) + ".bin");
+    }
+
+    // Runs on diskExecutor
+    private Entry readFromDisk(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION) return null;
+            // Different keys can share a hash, the stored key tells them apart
+            if (!key.equals(readString(in))) return null;
+            long savedAt = in.readLong();
+            int totalItems = in.readInt();
+            int count = in.readInt();
+            ArrayList<BookInfo> books = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                books.add(readBook(in));
+            }
+            return new Entry(new BookPage(totalItems, books), savedAt);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read cache entry: " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    // Runs on diskExecutor
+    private void writeToDisk(String key, Entry entry) {
+        if (!dir.exists() && !dir.mkdirs()) return;
+        File file = fileFor(key);
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_VERSION);
+            writeString(out, key);
+            out.writeLong(entry.savedAt);
+            out.writeInt(entry.page.getTotalItems());
+            out.writeInt(entry.page.getBooks().size());
+            for (BookInfo book : entry.page.getBooks()) {
+                writeBook(out, book);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write cache entry: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        tmp.renameTo(file);
+        trimDisk();
+    }
+
+    // Keep at most MAX_DISK_ENTRIES files, removing the oldest ones first
+    private void trimDisk() {
+        File[] files = dir.listFiles();
+        if (files == null || files.length <= MAX_DISK_ENTRIES) return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+            if (files[i].delete()) evictions.incrementAndGet();
+        }
+    }
+
+    private static void writeBook(DataOutputStream out, BookInfo book) throws IOException {
+        writeString(out, book.getId());
+        writeString(out, book.getTitle());
+        writeString(out, book.getSubtitle());
+        ArrayList<String> authors = book.getAuthors() != null ? book.getAuthors() : new ArrayList<>();
+        out.writeInt(authors.size());
+        for (String author : authors) {
+            writeString(out, author);
+        }
+        writeString(out, book.getPublisher());
+        writeString(out, book.getPublishedDate());
+        writeString(out, book.getDescription());
+        out.writeInt(book.getPageCount());
+        writeString(out, book.getThumbnail());
+        writeString(out, book.getPreviewLink());
+        writeString(out, book.getInfoLink());
+    }
+
+    private static BookInfo readBook(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String title = readString(in);
+        String subtitle = readString(in);
+        int authorCount = in.readInt();
+        ArrayList<String> authors = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+            authors.add(readString(in));
+        }
+        String publisher = readString(in);
+        String publishedDate = readString(in);
+        String description = readString(in);
+        int pageCount = in.readInt();
+        String thumbnail = readString(in);
+        String previewLink = readString(in);
+        String infoLink = readString(in);
+
+        BookInfo book = new BookInfo(title, subtitle, authors, publisher, publishedDate,
+                description, pageCount, thumbnail, previewLink, infoLink, "");
+        book.setId(id);
+        return book;
+    }
+
+    // Length-prefixed UTF-8 (writeUTF is limited to 64 KB, long descriptions can exceed it)
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
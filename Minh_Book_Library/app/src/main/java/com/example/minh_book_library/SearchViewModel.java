@@ -0,0 +1,85 @@
+package com.example.minh_book_library;
+
+import android.os.Bundle;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import java.util.ArrayList;
+
+// Search state that outlives MainActivity. The pager, its results and its
+// requests survive rotation; a compact copy of the results goes into the saved
+// state so a restore after process death redraws the list without the network.
+public class SearchViewModel extends ViewModel {
+
+    private static final String KEY_RESULTS = "search_results";
+    private static final String KEY_SHOWING_SAVED_BOOKS = "showing_saved_books";
+
+    private final SavedStateHandle state;
+    private final ArrayList<BookInfo> results = new ArrayList<>();
+    private final SearchPager pager;
+    // The screen currently showing the results, null while it is being recreated
+    private SearchPager.Listener listener;
+
+    public SearchViewModel(SavedStateHandle state) {
+        this.state = state;
+        BookLibraryApp app = BookLibraryApp.getInstance();
+        pager = new SearchPager(app.getBooksRequestCoalescer(), app.getSearchResultCache(), this, results,
+                new SearchPager.Listener() {
+                    @Override
+                    public void onPageInserted(int positionStart, int count) {
+                        if (listener != null) listener.onPageInserted(positionStart, count);
+                    }
+
+                    @Override
+                    public void onPageRemoved(int positionStart, int count) {
+                        if (listener != null) listener.onPageRemoved(positionStart, count);
+                    }
+
+                    @Override
+                    public void onEmpty() {
+                        if (listener != null) listener.onEmpty();
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        if (listener != null) listener.onError(message);
+                    }
+                });
+
+        Bundle snapshot = state.get(KEY_RESULTS);
+        if (snapshot != null) {
+            pager.restore(snapshot);
+        }
+        state.setSavedStateProvider(KEY_RESULTS, pager::snapshot);
+    }
+
+    public SearchPager getPager() {
+        return pager;
+    }
+
+    // The list the pager fills, the screen's adapter gets copies of it
+    public ArrayList<BookInfo> getResults() {
+        return results;
+    }
+
+    public void setListener(SearchPager.Listener listener) {
+        this.listener = listener;
+    }
+
+    public boolean isShowingSavedBooks() {
+        Boolean showing = state.get(KEY_SHOWING_SAVED_BOOKS);
+        return showing == null || showing;
+    }
+
+    public void setShowingSavedBooks(boolean showing) {
+        state.set(KEY_SHOWING_SAVED_BOOKS, showing);
+    }
+
+    @Override
+    protected void onCleared() {
+        // The screen is gone for good, stop its searches
+        pager.cancel();
+        listener = null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.minh_book_library;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+// Remembers the logged in user across process restarts, so a cold launch can
+// go straight to MainActivity instead of asking for the password again.
+// The session ends on logout or after SESSION_TTL_MS.
+public class SessionStore {
+
+    private static final String TAG = "SessionStore";
+
+    public static final String PREFS_NAME = "session";
+    public static final long SESSION_TTL_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final String KEY_USERNAME = "username";
+    private static final String KEY_CREATED_AT = "created_at";
+
+    private final SharedPreferences prefs;
+
+    public SessionStore(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Make username the current user and remember it for the next launches
+    public void start(String username) {
+        DatabaseHelper.setCurrentUser(username);
+        prefs.edit()
+                .putString(KEY_USERNAME, username)
+                .putLong(KEY_CREATED_AT, System.currentTimeMillis())
+                .apply();
+    }
+
+    // Restore the remembered user as the current user; returns false if there is
+    // no session or it has expired
+    public boolean restore() {
+        long start = SystemClock.elapsedRealtime();
+        String username = prefs.getString(KEY_USERNAME, "");
+        long createdAt = prefs.getLong(KEY_CREATED_AT, 0);
+        boolean valid = !username.isEmpty() && System.currentTimeMillis() - createdAt < SESSION_TTL_MS;
+        if (valid) {
+            DatabaseHelper.setCurrentUser(username);
+        } else if (!username.isEmpty()) {
+            end();
+        }
+        Log.d(TAG, "Session " + (valid ? "restored" : "not found") + " in "
+                + (SystemClock.elapsedRealtime() - start) + " ms");
+        return valid;
+    }
+
+    public void end() {
+        DatabaseHelper.setCurrentUser("");
+        prefs.edit().clear().apply();
+    }
+}
@@ -2,18 +2,28 @@ package com.example.minh_book_library;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.splashscreen.SplashScreen;
 
 public class SplashActivity extends AppCompatActivity {
+
+    private boolean warmupDone = false;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        SplashScreen splashScreen = SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_splash);
-        new Handler().postDelayed(() -> {
-            startActivity(new Intent(SplashActivity.this, LoginActivity.class));
+        // Keep the splash only until the start-up work is done
+        splashScreen.setKeepOnScreenCondition(() -> !warmupDone);
+
+        StartupWarmup.run(BookLibraryApp.getInstance(), timings -> {
+            warmupDone = true;
+            if (isFinishing() || isDestroyed()) return;
+            // A remembered session skips the login screen
+            boolean loggedIn = !DatabaseHelper.getCurrentUser().isEmpty();
+            startActivity(new Intent(SplashActivity.this, loggedIn ? MainActivity.class : LoginActivity.class));
             finish();
-        }, 2000);
+        });
     }
-}
\ No newline at end of file
+}
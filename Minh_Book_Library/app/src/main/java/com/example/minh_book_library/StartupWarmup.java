@@ -0,0 +1,103 @@
+package com.example.minh_book_library;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Start-up work that the splash screen waits for instead of a fixed delay.
+// Every stage runs on its own thread; the listener is called on the main
+// thread once all of them are done, or after MAX_WAIT_MS at the latest.
+// Each stage is also a trace section ("warmup:<stage>") for startup benchmarks.
+public class StartupWarmup {
+
+    private static final String TAG = "StartupWarmup";
+
+    public static final long MAX_WAIT_MS = 3000;
+
+    public interface Listener {
+        // Stage name -> milliseconds, plus "total"
+        void onFinished(Map<String, Long> timings);
+    }
+
+    // Timings of the last warm-up in this process
+    private static volatile Map<String, Long> lastTimings = Collections.emptyMap();
+
+    public static Map<String, Long> getLastTimings() {
+        return lastTimings;
+    }
+
+    public static void run(BookLibraryApp app, Listener listener) {
+        Map<String, Runnable> stages = new LinkedHashMap<>();
+        // Opening the database also runs any pending schema upgrade
+        stages.put("database", () -> app.getDatabaseHelper().getWritableDatabase());
+        stages.put("request_queue", app::getRequestQueue);
+        stages.put("glide", () -> Glide.get(app));
+        if (!DatabaseHelper.getCurrentUser().isEmpty()) {
+            // Only useful when the splash goes straight to MainActivity
+            stages.put("saved_books", () -> {
+                try {
+                    app.getBookDao().prewarmSavedBooks(SavedBooksPager.PAGE_SIZE).get();
+                } catch (ExecutionException | InterruptedException e) {
+                    Log.w(TAG, "Saved books warm-up failed: " + e.getMessage());
+                }
+            });
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        AtomicInteger remaining = new AtomicInteger(stages.size());
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        Runnable finish = new Runnable() {
+            @Override
+            public void run() {
+                if (!finished.compareAndSet(false, true)) return;
+                mainHandler.removeCallbacks(this);
+                timings.put("total", SystemClock.elapsedRealtime() - start);
+                Map<String, Long> result;
+                synchronized (timings) {
+                    result = Collections.unmodifiableMap(new LinkedHashMap<>(timings));
+                }
+                lastTimings = result;
+                Log.d(TAG, "Warm-up " + (remaining.get() == 0 ? "done" : "timed out") + ": " + result);
+                listener.onFinished(result);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(stages.size());
+        for (Map.Entry<String, Runnable> stage : stages.entrySet()) {
+            executor.execute(() -> {
+                long stageStart = SystemClock.elapsedRealtime();
+                Trace.beginSection("warmup:" + stage.getKey());
+                try {
+                    stage.getValue().run();
+                } catch (RuntimeException e) {
+                    // The screen that needs it will try again and report the error
+                    Log.w(TAG, "Stage " + stage.getKey() + " failed: " + e.getMessage());
+                } finally {
+                    Trace.endSection();
+                    timings.put(stage.getKey(), SystemClock.elapsedRealtime() - stageStart);
+                    if (remaining.decrementAndGet() == 0) {
+                        mainHandler.post(finish);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        mainHandler.postDelayed(finish, MAX_WAIT_MS);
+    }
+}
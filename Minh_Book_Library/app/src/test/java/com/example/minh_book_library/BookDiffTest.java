@@ -0,0 +1,134 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// What BookAdapter's ListAdapter does to the rows when a new list is submitted.
+// Every changed or inserted position means one more onBindViewHolder call.
+@RunWith(RobolectricTestRunner.class)
+public class BookDiffTest {
+
+    private static final int BOOKS = 100;
+
+    // Counts the adapter notifications a diff dispatches
+    private static class CountingCallback implements ListUpdateCallback {
+        int changed;
+        int inserted;
+        int removed;
+        int moved;
+        final List<Integer> changedPositions = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            inserted += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            removed += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            moved++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            changed += count;
+            for (int i = 0; i < count; i++) changedPositions.add(position + i);
+        }
+
+        int rebinds() {
+            return changed + inserted;
+        }
+    }
+
+    @Test
+    public void editingOneBookRebindsOnlyItsRow() {
+        List<BookInfo> before = library();
+        List<BookInfo> after = library();
+        after.get(42).setTitle("A new title");
+
+        CountingCallback callback = diff(before, after);
+
+        assertEquals(1, callback.rebinds());
+        assertEquals(Collections.singletonList(42), callback.changedPositions);
+        assertEquals(0, callback.removed);
+        assertEquals(0, callback.moved);
+    }
+
+    @Test
+    public void reloadingTheSameBooksRebindsNothing() {
+        // Fresh objects from the database, nothing a row shows is different
+        CountingCallback callback = diff(library(), library());
+
+        assertEquals(0, callback.rebinds());
+        assertEquals(0, callback.removed);
+        assertEquals(0, callback.moved);
+    }
+
+    @Test
+    public void savingOneBookInsertsOneRow() {
+        List<BookInfo> before = library();
+        List<BookInfo> after = library();
+        after.add(0, book(BOOKS));
+
+        CountingCallback callback = diff(before, after);
+
+        assertEquals(1, callback.rebinds());
+        assertEquals(1, callback.inserted);
+        assertEquals(0, callback.changed);
+    }
+
+    private static CountingCallback diff(List<BookInfo> before, List<BookInfo> after) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return before.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return after.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return BookAdapter.DIFF_CALLBACK.areItemsTheSame(before.get(oldPosition), after.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return BookAdapter.DIFF_CALLBACK.areContentsTheSame(before.get(oldPosition), after.get(newPosition));
+            }
+        });
+        CountingCallback callback = new CountingCallback();
+        result.dispatchUpdatesTo(callback);
+        return callback;
+    }
+
+    private static List<BookInfo> library() {
+        List<BookInfo> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) books.add(book(i));
+        return books;
+    }
+
+    private static BookInfo book(int i) {
+        BookInfo book = new BookInfo("Title " + i, "", new ArrayList<>(Collections.singletonList("Author")),
+                "Publisher", "2020", "", 100 + i, "https://books.example/" + i + ".jpg", "", "", "");
+        book.setId("v" + i);
+        return book;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.util.JsonReader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Parse time and allocations of the streaming BooksRequest.readPage() against
+// the org.json DOM parsing it replaced, on 20-, 40- and 500-item volumes responses
+@RunWith(RobolectricTestRunner.class)
+public class BooksParserBenchmarkTest {
+
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 50;
+
+    private interface Parser {
+        List<BookInfo> parse(byte[] json) throws Exception;
+    }
+
+    @Test
+    public void twentyItems() throws Exception {
+        compare("volumes_20.json", 20);
+    }
+
+    @Test
+    public void fortyItems() throws Exception {
+        compare("volumes_40.json", 40);
+    }
+
+    @Test
+    public void fiveHundredItems() throws Exception {
+        compare("volumes_500.json", 500);
+    }
+
+    private void compare(String fixture, int items) throws Exception {
+        byte[] json = readFixture(fixture);
+        List<BookInfo> streamed = parseStreaming(json);
+        List<BookInfo> dom = parseDom(json);
+
+        // Both parsers must produce the same books
+        assertEquals(items, streamed.size());
+        assertEquals(items, dom.size());
+        for (int i = 0; i < items; i++) {
+            assertSameBook(dom.get(i), streamed.get(i));
+        }
+
+        long[] domCost = measure(BooksParserBenchmarkTest::parseDom, json);
+        long[] streamingCost = measure(BooksParserBenchmarkTest::parseStreaming, json);
+        System.out.println(fixture + " (" + json.length + " bytes): DOM " + domCost[0] / 1000 + " us, "
+                + domCost[1] + " bytes allocated; streaming " + streamingCost[0] / 1000 + " us, "
+                + streamingCost[1] + " bytes allocated (per parse)");
+        assertTrue("Streaming should allocate less than DOM", streamingCost[1] < domCost[1]);
+    }
+
+    // Average nanoseconds and bytes allocated per parse on this thread
+    private static long[] measure(Parser parser, byte[] json) throws Exception {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            parser.parse(json);
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            parser.parse(json);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new long[]{elapsed / MEASURED_RUNS, allocated / MEASURED_RUNS};
+    }
+
+    // What parseNetworkResponse does with the response bytes
+    private static List<BookInfo> parseStreaming(byte[] json) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json),
+                StandardCharsets.UTF_8));
+        try {
+            return BooksRequest.readPage(reader).getBooks();
+        } finally {
+            reader.close();
+        }
+    }
+
+    // The JsonObjectRequest + org.json walk getBooksInfo used before
+    private static List<BookInfo> parseDom(byte[] json) throws JSONException {
+        JSONObject response = new JSONObject(new String(json, StandardCharsets.UTF_8));
+        List<BookInfo> books = new ArrayList<>();
+        JSONArray itemsArray = response.getJSONArray("items");
+        for (int i = 0; i < itemsArray.length(); i++) {
+            JSONObject volumeObj = itemsArray.getJSONObject(i).getJSONObject("volumeInfo");
+            JSONArray authorsArray = volumeObj.optJSONArray("authors");
+            JSONObject imageLinks = volumeObj.optJSONObject("imageLinks");
+            String thumbnail = "";
+            if (imageLinks != null) {
+                if (imageLinks.has("thumbnail")) {
+                    thumbnail = imageLinks.optString("thumbnail", "");
+                } else if (imageLinks.has("smallThumbnail")) {
+                    thumbnail = imageLinks.optString("smallThumbnail", "");
+                }
+            }
+            ArrayList<String> authors = new ArrayList<>();
+            if (authorsArray != null) {
+                for (int j = 0; j < authorsArray.length(); j++) {
+                    authors.add(authorsArray.optString(j, "Unknown Author"));
+                }
+            } else {
+                authors.add("Unknown Author");
+            }
+            books.add(new BookInfo(
+                    volumeObj.optString("title", "Unknown Title"),
+                    volumeObj.optString("subtitle", ""),
+                    authors,
+                    volumeObj.optString("publisher", "Unknown Publisher"),
+                    volumeObj.optString("publishedDate", "Unknown Date"),
+                    volumeObj.optString("description", "No description available"),
+                    volumeObj.optInt("pageCount", 0),
+                    thumbnail,
+                    volumeObj.optString("previewLink", ""),
+                    volumeObj.optString("infoLink", ""),
+                    ""));
+        }
+        return books;
+    }
+
+    private static void assertSameBook(BookInfo expected, BookInfo actual) {
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getSubtitle(), actual.getSubtitle());
+        assertEquals(expected.getAuthors(), actual.getAuthors());
+        assertEquals(expected.getPublisher(), actual.getPublisher());
+        assertEquals(expected.getPublishedDate(), actual.getPublishedDate());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getPageCount(), actual.getPageCount());
+        assertEquals(expected.getThumbnail(), actual.getThumbnail());
+        assertEquals(expected.getPreviewLink(), actual.getPreviewLink());
+        assertEquals(expected.getInfoLink(), actual.getInfoLink());
+    }
+
+    static byte[] readFixture(String name) throws IOException {
+        try (InputStream in = BooksParserBenchmarkTest.class.getClassLoader()
+                .getResourceAsStream("volumes/" + name)) {
+            if (in == null) throw new IOException("Missing fixture " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
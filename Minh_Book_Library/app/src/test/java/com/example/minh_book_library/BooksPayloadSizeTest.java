@@ -0,0 +1,148 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.util.JsonReader;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+// Bytes per search page. volumes_40.json is a full 40-item response,
+// volumes_40_fields.json the same response with the FIELDS projection applied.
+@RunWith(RobolectricTestRunner.class)
+public class BooksPayloadSizeTest {
+
+    // Regression budgets for one projected 40-item page, about 10% above today's size
+    private static final int MAX_PAGE_BYTES = 56 * 1024;
+    private static final int MAX_PAGE_GZIP_BYTES = 8 * 1024;
+    private static final double MAX_PROJECTED_RATIO = 0.45;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final FakeBooksApi api = new FakeBooksApi();
+    private RequestQueue queue;
+    private ByteCountingNetwork network;
+
+    @Before
+    public void setUp() throws Exception {
+        api.start();
+        network = new ByteCountingNetwork(new BasicNetwork(api.stack()));
+        queue = api.newQueue(tmp.newFolder("volley"), network);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        api.shutdown();
+    }
+
+    @Test
+    public void projectionKeepsEverythingBookInfoReads() throws IOException {
+        List<BookInfo> full = parse(BooksParserBenchmarkTest.readFixture("volumes_40.json"));
+        List<BookInfo> projected = parse(BooksParserBenchmarkTest.readFixture("volumes_40_fields.json"));
+
+        assertEquals(full.size(), projected.size());
+        for (int i = 0; i < full.size(); i++) {
+            BookInfo expected = full.get(i);
+            BookInfo actual = projected.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getSubtitle(), actual.getSubtitle());
+            assertEquals(expected.getAuthors(), actual.getAuthors());
+            assertEquals(expected.getPublisher(), actual.getPublisher());
+            assertEquals(expected.getPublishedDate(), actual.getPublishedDate());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getPageCount(), actual.getPageCount());
+            assertEquals(expected.getThumbnail(), actual.getThumbnail());
+            assertEquals(expected.getPreviewLink(), actual.getPreviewLink());
+            assertEquals(expected.getInfoLink(), actual.getInfoLink());
+        }
+    }
+
+    @Test
+    public void projectedPageStaysWithinBudget() throws IOException {
+        byte[] full = BooksParserBenchmarkTest.readFixture("volumes_40.json");
+        byte[] projected = BooksParserBenchmarkTest.readFixture("volumes_40_fields.json");
+        int projectedGzip = gzip(projected).length;
+        System.out.println("40-item page: full " + full.length + " bytes (" + gzip(full).length + " gzipped), "
+                + "projected " + projected.length + " bytes (" + projectedGzip + " gzipped)");
+
+        assertTrue("Projected page is " + projected.length + " bytes", projected.length <= MAX_PAGE_BYTES);
+        assertTrue("Gzipped page is " + projectedGzip + " bytes", projectedGzip <= MAX_PAGE_GZIP_BYTES);
+        assertTrue(projected.length <= full.length * MAX_PROJECTED_RATIO);
+    }
+
+    @Test
+    public void countsGzippedDownloadsButNotCacheHits() throws Exception {
+        byte[] json = BooksParserBenchmarkTest.readFixture("volumes_40_fields.json");
+        byte[] gzipped = gzip(json);
+        api.server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=UTF-8")
+                .setHeader("Content-Encoding", "gzip")
+                .setHeader("Cache-Control", "public, max-age=300")
+                .setBody(new Buffer().write(gzipped)));
+        String url = BooksRequest.searchUrl("java", 0, 40);
+
+        assertEquals(40, fetch(url).getBooks().size());
+        RecordedRequest request = api.server.takeRequest();
+        assertEquals(BooksRequest.FIELDS, request.getRequestUrl().queryParameter("fields"));
+        assertEquals("gzip", request.getHeader("Accept-Encoding"));
+        assertEquals(1, network.getResponseCount());
+        assertEquals(gzipped.length, network.getWireBytes());
+        assertEquals(json.length, network.getDecompressedBytes());
+
+        // Served by the disk cache: nothing more came over the wire
+        assertEquals(40, fetch(url).getBooks().size());
+        assertEquals(1, network.getResponseCount());
+        assertEquals(gzipped.length, network.getWireBytes());
+    }
+
+    private BookPage fetch(String url) {
+        AtomicReference<BookPage> result = new AtomicReference<>();
+        queue.add(new BooksRequest(url, result::set, error -> fail("Request failed: " + error)));
+        FakeBooksApi.waitFor(() -> result.get() != null);
+        return result.get();
+    }
+
+    private static List<BookInfo> parse(byte[] json) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json),
+                StandardCharsets.UTF_8));
+        try {
+            return BooksRequest.readPage(reader).getBooks();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+
+// The stub server counts requests: identical searches in flight share one
+@RunWith(RobolectricTestRunner.class)
+public class BooksRequestCoalescerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final FakeBooksApi api = new FakeBooksApi();
+    private RequestQueue queue;
+    private CircuitBreaker circuitBreaker;
+    private BooksRequestCoalescer coalescer;
+
+    @Before
+    public void setUp() throws Exception {
+        api.start();
+        queue = api.newQueue(tmp.newFolder("volley"));
+        circuitBreaker = new CircuitBreaker();
+        coalescer = new BooksRequestCoalescer(queue, circuitBreaker);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        api.shutdown();
+    }
+
+    @Test
+    public void identicalFetchesShareOneRequest() {
+        api.server.enqueue(slowResponse());
+        String url = BooksRequest.searchUrl("java", 0, 20);
+        AtomicReference<BookPage> first = new AtomicReference<>();
+        AtomicReference<BookPage> second = new AtomicReference<>();
+
+        coalescer.fetch(url, "first", first::set, error -> fail(error.toString()));
+        coalescer.fetch(url, "second", second::set, error -> fail(error.toString()));
+        FakeBooksApi.waitFor(() -> first.get() != null && second.get() != null);
+
+        assertEquals(1, api.server.getRequestCount());
+        assertEquals(1, coalescer.getCoalescedRequestCount());
+        assertEquals("v1", second.get().getBooks().get(0).getId());
+    }
+
+    @Test
+    public void cancellingOneCallerKeepsTheRequestForTheOther() {
+        api.server.enqueue(slowResponse());
+        String url = BooksRequest.searchUrl("java", 0, 20);
+        AtomicReference<BookPage> cancelled = new AtomicReference<>();
+        AtomicReference<BookPage> kept = new AtomicReference<>();
+
+        coalescer.fetch(url, "cancelled", cancelled::set, error -> fail(error.toString()));
+        coalescer.fetch(url, "kept", kept::set, error -> fail(error.toString()));
+        coalescer.cancelAll("cancelled");
+        FakeBooksApi.waitFor(() -> kept.get() != null);
+
+        assertNull(cancelled.get());
+        assertEquals(1, api.server.getRequestCount());
+    }
+
+    @Test
+    public void doubleTappedSearchMakesOneRequest() throws Exception {
+        api.server.enqueue(slowResponse());
+        ArrayList<BookInfo> books = new ArrayList<>();
+        SearchPager pager = new SearchPager(coalescer, new SearchResultCache(tmp.newFolder("search")),
+                "screen", books, new SearchPager.Listener() {
+                    @Override
+                    public void onPageInserted(int positionStart, int count) {
+                    }
+
+                    @Override
+                    public void onPageRemoved(int positionStart, int count) {
+                    }
+
+                    @Override
+                    public void onEmpty() {
+                        fail("No results");
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        fail(message);
+                    }
+                });
+
+        pager.search("Java");
+        // Let the first tap reach the network before the second one
+        FakeBooksApi.waitFor(() -> coalescer.getNetworkRequestCount() == 1);
+        pager.search(" java ");
+        FakeBooksApi.waitFor(() -> !books.isEmpty());
+
+        assertEquals(1, api.server.getRequestCount());
+        assertEquals(1, books.size());
+    }
+
+    @Test
+    public void serverErrorsAreRetriedUntilTheyClear() {
+        api.server.enqueue(new MockResponse().setResponseCode(503));
+        api.server.enqueue(new MockResponse().setResponseCode(503));
+        api.server.enqueue(okResponse());
+        AtomicReference<BookPage> result = new AtomicReference<>();
+
+        coalescer.fetch(BooksRequest.searchUrl("java", 0, 20), "screen", result::set,
+                error -> fail(error.toString()));
+        FakeBooksApi.waitFor(() -> result.get() != null);
+
+        // One immediate retry inside Volley, then one delayed retry from the coalescer
+        assertEquals(3, api.server.getRequestCount());
+        assertEquals(2, coalescer.getNetworkRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void rateLimitedRequestWaitsForRetryAfter() {
+        api.server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        api.server.enqueue(okResponse());
+        AtomicReference<BookPage> result = new AtomicReference<>();
+
+        coalescer.fetch(BooksRequest.searchUrl("java", 0, 20), "screen", result::set,
+                error -> fail(error.toString()));
+        FakeBooksApi.waitFor(() -> result.get() != null);
+
+        // Volley does not retry a 429 itself, the second request came from the coalescer
+        assertEquals(2, api.server.getRequestCount());
+        assertEquals(2, coalescer.getNetworkRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void retryAfterWinsOverTheComputedDelay() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Retry-After", "1");
+        VolleyError rateLimited = new VolleyError(new NetworkResponse(429, new byte[0], headers, false, 0));
+        assertEquals(1000, BackoffRetryPolicy.nextDelayMs(rateLimited, 0));
+
+        headers.put("Retry-After", "60");
+        assertEquals(-1, BackoffRetryPolicy.nextDelayMs(rateLimited, 0));
+
+        VolleyError serverError = new VolleyError(new NetworkResponse(503, new byte[0], new HashMap<>(), false, 0));
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long delay = BackoffRetryPolicy.nextDelayMs(serverError, attempt);
+            assertTrue(delay >= 0 && delay <= BackoffRetryPolicy.MAX_DELAY_MS);
+        }
+    }
+
+    @Test
+    public void tooLongRetryAfterFailsAndOpensTheCircuit() {
+        api.server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "60"));
+        AtomicReference<VolleyError> result = new AtomicReference<>();
+
+        coalescer.fetch(BooksRequest.searchUrl("java", 0, 20), "screen",
+                page -> fail("Expected an error"), result::set);
+        FakeBooksApi.waitFor(() -> result.get() != null);
+
+        assertNotNull(result.get().networkResponse);
+        assertEquals(429, result.get().networkResponse.statusCode);
+        assertEquals(1, api.server.getRequestCount());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void onlyTheTrialsCancellationLetsAnotherTrialThrough() {
+        circuitBreaker = new CircuitBreaker(1, 0);
+        coalescer = new BooksRequestCoalescer(queue, circuitBreaker);
+        for (int i = 0; i < 3; i++) api.server.enqueue(slowResponse());
+
+        // Let through while closed, still in flight when the circuit opens
+        coalescer.fetch(BooksRequest.searchUrl("old", 0, 20), "old", page -> { }, error -> { });
+        circuitBreaker.recordFailure(-1);
+        // No cool-down, this one is the half-open trial
+        coalescer.fetch(BooksRequest.searchUrl("trial", 0, 20), "trial", page -> { }, error -> { });
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        coalescer.cancelAll("old");
+        assertTrue(refused("second"));
+
+        coalescer.cancelAll("trial");
+        assertFalse(refused("third"));
+    }
+
+    // Whether the open circuit answers a fetch of query right away
+    private boolean refused(String query) {
+        AtomicReference<VolleyError> error = new AtomicReference<>();
+        coalescer.fetch(BooksRequest.searchUrl(query, 0, 20), query, page -> { }, error::set);
+        return error.get() instanceof CircuitBreaker.OpenError;
+    }
+
+    private static MockResponse okResponse() {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=UTF-8")
+                .setBody(FakeBooksApi.page(1, FakeBooksApi.volume("v1", "Java")));
+    }
+
+    // Slow enough that the second caller arrives while the first is in flight
+    private static MockResponse slowResponse() {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=UTF-8")
+                .setBody(FakeBooksApi.page(1, FakeBooksApi.volume("v1", "Java")))
+                .setBodyDelay(300, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.minh_book_library;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.android.volley.Network;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.HurlStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+// Local MockWebServer standing in for the Google Books API in unit tests.
+// Requests the app builds for BooksRequest.BASE_URL are rewritten to it.
+class FakeBooksApi {
+
+    static final long TIMEOUT_MS = 10_000;
+
+    final MockWebServer server = new MockWebServer();
+
+    void start() throws IOException {
+        server.start();
+    }
+
+    void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    // HTTP stack that sends requests for the real API to this server
+    HurlStack stack() {
+        String local = server.url("/books/v1/volumes").toString();
+        return new HurlStack(url -> url.startsWith(BooksRequest.BASE_URL)
+                ? local + url.substring(BooksRequest.BASE_URL.length())
+                : url);
+    }
+
+    // A queue built like the app's shared one, talking to this server
+    RequestQueue newQueue(File cacheDir) {
+        return newQueue(cacheDir, new BasicNetwork(stack()));
+    }
+
+    RequestQueue newQueue(File cacheDir, Network network) {
+        return BookLibraryApp.newRequestQueue(cacheDir, BookLibraryApp.HTTP_CACHE_SIZE_BYTES, network);
+    }
+
+    // { "totalItems": n, "items": [ ... ] }
+    static String page(int totalItems, String... volumes) {
+        return "{\"totalItems\":" + totalItems + ",\"items\":[" + String.join(",", volumes) + "]}";
+    }
+
+    static String volume(String id, String title) {
+        return "{\"id\":\"" + id + "\",\"volumeInfo\":{\"title\":\"" + title + "\",\"authors\":[\"Author\"]," +
+                "\"publisher\":\"Press\",\"publishedDate\":\"2020\",\"pageCount\":100}}";
+    }
+
+    // Run main looper tasks (Volley deliveries, cache callbacks) until condition
+    // holds; the network and disk threads keep running meanwhile
+    static void waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting");
+            }
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(10));
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
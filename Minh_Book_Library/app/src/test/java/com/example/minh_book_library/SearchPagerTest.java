@@ -0,0 +1,173 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.android.volley.RequestQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchPagerTest {
+
+    private static final int TOTAL_ITEMS = 1000;
+    private static final int PAGES = TOTAL_ITEMS / SearchPager.PAGE_SIZE;
+    private static final long SLOW_RESPONSE_MS = 1000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final FakeBooksApi api = new FakeBooksApi();
+    private RequestQueue queue;
+    private SearchPager pager;
+    private final ArrayList<BookInfo> books = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        api.start();
+        queue = api.newQueue(tmp.newFolder("volley"));
+        BooksRequestCoalescer coalescer = new BooksRequestCoalescer(queue, new CircuitBreaker());
+        SearchResultCache cache = new SearchResultCache(tmp.newFolder("search"));
+        pager = new SearchPager(coalescer, cache, "test", books, new SearchPager.Listener() {
+            @Override
+            public void onPageInserted(int positionStart, int count) {
+            }
+
+            @Override
+            public void onPageRemoved(int positionStart, int count) {
+            }
+
+            @Override
+            public void onEmpty() {
+                fail("No results");
+            }
+
+            @Override
+            public void onError(String message) {
+                fail(message);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        api.shutdown();
+    }
+
+    @Test
+    public void pagesThroughAThousandResultsAndBack() {
+        api.server.setDispatcher(new ThousandResults());
+        Set<String> seen = new HashSet<>();
+
+        pager.search("java");
+        awaitPage();
+        seen.addAll(checkWindow());
+
+        // Scroll down to the last result
+        for (int i = 0; i < PAGES && !lastId().equals("v999"); i++) {
+            pager.loadNextPage();
+            awaitPage();
+            seen.addAll(checkWindow());
+        }
+        assertEquals("v999", lastId());
+        // Every volume seen once, the repeats at the page boundaries dropped
+        assertEquals(TOTAL_ITEMS - (PAGES - 1), seen.size());
+
+        // And back up to the first one, reloading the dropped pages
+        for (int i = 0; i < PAGES && !books.get(0).getId().equals("v0"); i++) {
+            pager.loadPreviousPage();
+            awaitPage();
+            checkWindow();
+        }
+        assertEquals("v0", books.get(0).getId());
+
+        // Reloaded pages come from the search result cache
+        assertEquals(PAGES, api.server.getRequestCount());
+    }
+
+    @Test
+    public void responseOfAnOlderQueryIsNeverShown() {
+        // The first query answers slowly, the one typed after it right away
+        api.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String query = request.getRequestUrl().queryParameter("q");
+                MockResponse response = new MockResponse()
+                        .setHeader("Content-Type", "application/json; charset=UTF-8")
+                        .setBody(FakeBooksApi.page(1, FakeBooksApi.volume(query + "1", query)));
+                if (query.equals("jav")) {
+                    response.setBodyDelay(SLOW_RESPONSE_MS, TimeUnit.MILLISECONDS);
+                }
+                return response;
+            }
+        });
+
+        pager.search("jav");
+        pager.search("java");
+        awaitPage();
+        assertEquals("java1", books.get(0).getId());
+
+        // Wait until the slow response would have arrived
+        long until = System.currentTimeMillis() + SLOW_RESPONSE_MS + 500;
+        FakeBooksApi.waitFor(() -> System.currentTimeMillis() > until);
+        assertEquals(1, books.size());
+        assertEquals("java1", books.get(0).getId());
+    }
+
+    private void awaitPage() {
+        FakeBooksApi.waitFor(() -> !pager.isLoading());
+    }
+
+    // The in-memory window is bounded and never shows a volume twice
+    private Set<String> checkWindow() {
+        assertTrue("Window of " + books.size() + " rows",
+                books.size() <= SearchPager.MAX_PAGES_IN_MEMORY * SearchPager.PAGE_SIZE);
+        Set<String> ids = new HashSet<>();
+        for (BookInfo book : books) {
+            assertTrue("Duplicate " + book.getId(), ids.add(book.getId()));
+        }
+        return ids;
+    }
+
+    private String lastId() {
+        return books.get(books.size() - 1).getId();
+    }
+
+    // 1,000 results; like the real API, the first item of every page repeats
+    // the last item of the page before
+    private static class ThousandResults extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            HttpUrl url = request.getRequestUrl();
+            int startIndex = Integer.parseInt(url.queryParameter("startIndex"));
+            int maxResults = Integer.parseInt(url.queryParameter("maxResults"));
+            int end = Math.min(TOTAL_ITEMS, startIndex + maxResults);
+            String[] volumes = new String[Math.max(0, end - startIndex)];
+            for (int i = startIndex; i < end; i++) {
+                int id = i > 0 && i % SearchPager.PAGE_SIZE == 0 ? i - 1 : i;
+                volumes[i - startIndex] = FakeBooksApi.volume("v" + id, "Java " + id);
+            }
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json; charset=UTF-8")
+                    .setBody(FakeBooksApi.page(TOTAL_ITEMS, volumes));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Bundle;
+import android.os.Looper;
+
+import androidx.activity.ComponentActivity;
+import androidx.lifecycle.ViewModelProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.ArrayList;
+
+// Search results across a configuration change and across process death. The
+// first page comes from the app's SearchResultCache, so any network request
+// counted by the coalescer is one the restore should not have made.
+@RunWith(RobolectricTestRunner.class)
+public class SearchViewModelRecreateTest {
+
+    private static final String QUERY = "java";
+    private static final int BOOKS = SearchPager.PAGE_SIZE;
+
+    // Minimal screen that owns a SearchViewModel the way MainActivity does
+    public static class SearchHostActivity extends ComponentActivity {
+        SearchViewModel viewModel;
+
+        @Override
+        protected void onCreate(Bundle savedInstanceState) {
+            super.onCreate(savedInstanceState);
+            viewModel = new ViewModelProvider(this).get(SearchViewModel.class);
+        }
+    }
+
+    private BooksRequestCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        BookLibraryApp app = BookLibraryApp.getInstance();
+        coalescer = app.getBooksRequestCoalescer();
+        ArrayList<BookInfo> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            BookInfo book = new BookInfo("Java " + i, "", new ArrayList<>(), "Press", "2020", "A book about Java",
+                    100 + i, "", "", "", "");
+            book.setId("v" + i);
+            books.add(book);
+        }
+        app.getSearchResultCache().put(SearchResultCache.keyFor(QUERY, 0), new BookPage(BOOKS, books));
+    }
+
+    @Test
+    public void rotationKeepsTheViewModelAndItsResults() {
+        ActivityController<SearchHostActivity> controller = Robolectric.buildActivity(SearchHostActivity.class).setup();
+        SearchViewModel viewModel = search(controller.get());
+
+        controller.recreate();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertSame(viewModel, controller.get().viewModel);
+        assertEquals(BOOKS, controller.get().viewModel.getResults().size());
+        assertEquals(QUERY, controller.get().viewModel.getPager().getQuery());
+        assertEquals(0, coalescer.getNetworkRequestCount());
+    }
+
+    @Test
+    public void processDeathRestoresTheResultsFromSavedState() {
+        ActivityController<SearchHostActivity> controller = Robolectric.buildActivity(SearchHostActivity.class).setup();
+        SearchViewModel viewModel = search(controller.get());
+
+        Bundle outState = new Bundle();
+        controller.pause().stop().saveInstanceState(outState).destroy();
+
+        // A new activity with a new ViewModelStore, as after the process was killed
+        ActivityController<SearchHostActivity> restored =
+                Robolectric.buildActivity(SearchHostActivity.class).setup(outState);
+        shadowOf(Looper.getMainLooper()).idle();
+        SearchViewModel restoredViewModel = restored.get().viewModel;
+
+        assertNotSame(viewModel, restoredViewModel);
+        assertEquals(QUERY, restoredViewModel.getPager().getQuery());
+        assertEquals(BOOKS, restoredViewModel.getResults().size());
+        for (int i = 0; i < BOOKS; i++) {
+            BookInfo book = restoredViewModel.getResults().get(i);
+            assertEquals("v" + i, book.getId());
+            assertEquals("Java " + i, book.getTitle());
+            assertTrue(book.isSummary());
+        }
+        assertEquals(0, coalescer.getNetworkRequestCount());
+    }
+
+    private static SearchViewModel search(SearchHostActivity activity) {
+        SearchViewModel viewModel = activity.viewModel;
+        viewModel.getPager().search(QUERY);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(BOOKS, viewModel.getResults().size());
+        return viewModel;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.minh_book_library;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.android.volley.RequestQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+
+// The shared queue honors the API's cache headers, so a repeated search is
+// answered from the disk cache without touching the network
+@RunWith(RobolectricTestRunner.class)
+public class SharedRequestQueueTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final FakeBooksApi api = new FakeBooksApi();
+    private RequestQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        api.start();
+        queue = api.newQueue(tmp.newFolder("volley"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+        api.shutdown();
+    }
+
+    @Test
+    public void secondIdenticalQueryMakesNoNetworkHit() {
+        api.server.enqueue(cacheableResponse());
+        String url = BooksRequest.searchUrl("java", 0, 20);
+
+        fetch(url);
+        long start = System.nanoTime();
+        BookPage second = fetch(url);
+        long cachedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(1, api.server.getRequestCount());
+        assertEquals("v1", second.getBooks().get(0).getId());
+        System.out.println("Repeat search served from cache in " + cachedMs + " ms");
+    }
+
+    @Test
+    public void removedEntryGoesBackToTheNetwork() {
+        api.server.enqueue(cacheableResponse());
+        api.server.enqueue(cacheableResponse());
+        String url = BooksRequest.searchUrl("java", 0, 20);
+
+        fetch(url);
+        // Drop the cached response
+        queue.getCache().remove(url);
+        fetch(url);
+
+        assertEquals(2, api.server.getRequestCount());
+    }
+
+    private static MockResponse cacheableResponse() {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=UTF-8")
+                .setHeader("Cache-Control", "public, max-age=300")
+                .setBody(FakeBooksApi.page(1, FakeBooksApi.volume("v1", "Java")));
+    }
+
+    private BookPage fetch(String url) {
+        AtomicReference<BookPage> result = new AtomicReference<>();
+        queue.add(new BooksRequest(url, result::set, error -> fail("Request failed: " + error)));
+        FakeBooksApi.waitFor(() -> result.get() != null);
+        return result.get();
+    }
+}
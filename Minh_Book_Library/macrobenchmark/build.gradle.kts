@@ -0,0 +1,51 @@
+plugins {
+    alias(libs.plugins.android.test)
+    alias(libs.plugins.baselineprofile)
+}
+
+android {
+    namespace = "com.example.minh_book_library.macrobenchmark"
+    compileSdk = 35
+
+    defaultConfig {
+        minSdk = 24
+        targetSdk = 35
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        // Matches the app's benchmark build type (release code, debug signing)
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+    implementation(libs.mockwebserver)
+}
+
+// Profiles are collected on the device connected to the build machine
+baselineProfile {
+    useConnectedDevices = true
+}
+
+androidComponents {
+    beforeVariants(selector().all()) {
+        // nonMinifiedBenchmark is the variant the baseline profile plugin collects with
+        it.enable = it.buildType == "benchmark" || it.buildType == "nonMinifiedBenchmark"
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.minh_book_library.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import kotlin.Unit;
+
+// Records the classes and methods used by the main journey against the fake
+// books server. Run through the baseline profile plugin on an API 33+ device (or
+// a rooted one): release and benchmark builds of :app (or
+// ./gradlew :app:generateBaselineProfile) write the profile to
+// app/src/main/generated/baselineProfiles.
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    private final FakeBooksServer server = new FakeBooksServer();
+
+    @Before
+    public void startServer() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(
+                LibraryJourney.PACKAGE,
+                15,
+                3,
+                null,
+                true,
+                false,
+                rule -> true,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    LibraryJourney.logIn(scope.getDevice());
+                    LibraryJourney.searchAndScroll(scope.getDevice());
+                    LibraryJourney.openBookDetails(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.minh_book_library.macrobenchmark;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.net.Uri;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+// Local stand-in for the Google Books volumes endpoint and its cover images, so
+// benchmark numbers do not depend on the network. The app's benchmark build
+// points BOOKS_API_URL here.
+public class FakeBooksServer {
+
+    public static final int PORT = 8080;
+    public static final int TOTAL_ITEMS = 400;
+    private static final int DESCRIPTION_WORDS = 120;
+    private static final String COVERS_URL = "http://127.0.0.1:" + PORT + "/covers/";
+    // Same size as a Google Books "thumbnail" link
+    private static final int COVER_WIDTH = 128;
+    private static final int COVER_HEIGHT = 192;
+
+    private final MockWebServer server = new MockWebServer();
+    // Encoded once per book, Glide asks again after scrolling back
+    private final Map<Integer, byte[]> covers = new ConcurrentHashMap<>();
+
+    public void start() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                Uri uri = Uri.parse(request.getPath());
+                if (uri.getPath().startsWith("/covers/")) {
+                    return cover(uri.getLastPathSegment());
+                }
+                if (!uri.getPath().startsWith("/books/v1/volumes")) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                int startIndex = intParam(uri, "startIndex", 0);
+                int maxResults = intParam(uri, "maxResults", 20);
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json; charset=UTF-8")
+                        .setHeader("Cache-Control", "private, max-age=0")
+                        .setBody(page(uri.getQueryParameter("q"), startIndex, maxResults));
+            }
+        });
+        server.start(PORT);
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    // A solid-colour JPEG per book, so covers decode and differ like real ones
+    private MockResponse cover(String name) {
+        int book;
+        try {
+            book = Integer.parseInt(name.substring(0, name.length() - ".jpg".length()));
+        } catch (RuntimeException e) {
+            return new MockResponse().setResponseCode(404);
+        }
+        byte[] jpeg = covers.computeIfAbsent(book, FakeBooksServer::encodeCover);
+        return new MockResponse()
+                .setHeader("Content-Type", "image/jpeg")
+                .setHeader("Cache-Control", "public, max-age=86400")
+                .setBody(new Buffer().write(jpeg));
+    }
+
+    private static byte[] encodeCover(int book) {
+        Bitmap bitmap = Bitmap.createBitmap(COVER_WIDTH, COVER_HEIGHT, Bitmap.Config.ARGB_8888);
+        new Canvas(bitmap).drawColor(Color.HSVToColor(new float[]{(book * 37) % 360, 0.5f, 0.8f}));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 80, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    private static int intParam(Uri uri, String name, int fallback) {
+        try {
+            return Integer.parseInt(uri.getQueryParameter(name));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // One page of volumes with the fields the app asks for
+    private static String page(String query, int startIndex, int maxResults) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"totalItems\":").append(TOTAL_ITEMS).append(",\"items\":[");
+        int end = Math.min(TOTAL_ITEMS, startIndex + maxResults);
+        for (int i = startIndex; i < end; i++) {
+            if (i > startIndex) json.append(',');
+            json.append("{\"id\":\"fake").append(i).append("\",\"volumeInfo\":{")
+                    .append("\"title\":\"").append(query).append(" volume ").append(i).append("\",")
+                    .append("\"subtitle\":\"Benchmark edition\",")
+                    .append("\"authors\":[\"Author ").append(i % 17).append("\",\"Co-author ").append(i % 5).append("\"],")
+                    .append("\"publisher\":\"Fake Press\",")
+                    .append("\"publishedDate\":\"20").append(10 + i % 15).append("-01-01\",")
+                    .append("\"description\":\"");
+            for (int w = 0; w < DESCRIPTION_WORDS; w++) {
+                json.append("lorem ");
+            }
+            json.append("\",\"pageCount\":").append(100 + i)
+                    .append(",\"imageLinks\":{\"thumbnail\":\"").append(COVERS_URL).append(i).append(".jpg\"}")
+                    .append(",\"previewLink\":\"https://example.com/preview/").append(i).append("\"")
+                    .append(",\"infoLink\":\"https://example.com/info/").append(i).append("\"}}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.minh_book_library.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Frame timing (P50/P90/P95/P99) of login, search, scrolling the results and
+// opening a book, against the fake books server
+@RunWith(AndroidJUnit4.class)
+public class JourneyBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final FakeBooksServer server = new FakeBooksServer();
+
+    @Before
+    public void startServer() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void journeyNoCompilation() {
+        journey(new CompilationMode.None());
+    }
+
+    @Test
+    public void journeyBaselineProfile() {
+        journey(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void journey(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                LibraryJourney.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    LibraryJourney.logIn(scope.getDevice());
+                    LibraryJourney.searchAndScroll(scope.getDevice());
+                    LibraryJourney.openBookDetails(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.minh_book_library.macrobenchmark;
+
+import android.os.SystemClock;
+
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.util.regex.Pattern;
+
+// UI steps of the Splash -> Login -> Main -> BookDetails journey, shared by the
+// benchmarks and the baseline profile generator
+public final class LibraryJourney {
+
+    public static final String PACKAGE = "com.example.minh_book_library";
+
+    private static final String USERNAME = "bench";
+    private static final String PASSWORD = "bench";
+    private static final String QUERY = "android";
+    private static final long TIMEOUT_MS = 10_000;
+    private static final long POLL_MS = 50;
+
+    private LibraryJourney() {
+    }
+
+    // After launch: log in (registering the account the first time) unless a
+    // remembered session already opened MainActivity
+    public static void logIn(UiDevice device) {
+        device.wait(Until.hasObject(By.res(Pattern.compile(PACKAGE + ":id/(loginBtn|searchEditText)"))), TIMEOUT_MS);
+        if (device.hasObject(res("searchEditText"))) return;
+
+        if (!submitLogin(device)) {
+            find(device, "gotoRegisterBtn").click();
+            find(device, "username").setText(USERNAME);
+            find(device, "password").setText(PASSWORD);
+            find(device, "registerBtn").click();
+            submitLogin(device);
+        }
+        find(device, "searchEditText");
+    }
+
+    // Log out from MainActivity, so the next launch starts at the login screen
+    public static void logOut(UiDevice device) {
+        find(device, "logoutButton").click();
+        UiObject2 confirm = device.wait(Until.findObject(By.text("Có")), TIMEOUT_MS);
+        if (confirm == null) {
+            throw new AssertionError("Logout confirmation not shown");
+        }
+        confirm.click();
+        find(device, "loginBtn");
+    }
+
+    // Wait until MainActivity has shown the first page of saved books, or that there are none
+    public static void waitForSavedBooks(UiDevice device) {
+        BySelector books = res("savedBooksRv").hasDescendant(res("bookTitle"));
+        BySelector none = res("savedBooksTitle").text("Chưa có sách nào được lưu");
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        while (!device.hasObject(books) && !device.hasObject(none)) {
+            if (SystemClock.uptimeMillis() > deadline) {
+                throw new AssertionError("Saved books not shown");
+            }
+            SystemClock.sleep(POLL_MS);
+        }
+    }
+
+    // Search, wait for the first page and fling through the results
+    public static void searchAndScroll(UiDevice device) {
+        find(device, "searchEditText").setText(QUERY);
+        find(device, "searchButton").click();
+        UiObject2 list = find(device, "rv");
+        device.wait(Until.hasObject(res("bookTitle")), TIMEOUT_MS);
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            list.fling(Direction.DOWN);
+        }
+        list.fling(Direction.UP);
+    }
+
+    // Open the first visible result and come back
+    public static void openBookDetails(UiDevice device) {
+        find(device, "bookTitle").click();
+        find(device, "bookDescription");
+        device.pressBack();
+        find(device, "searchEditText");
+    }
+
+    private static boolean submitLogin(UiDevice device) {
+        find(device, "loginUsername").setText(USERNAME);
+        find(device, "loginPassword").setText(PASSWORD);
+        find(device, "loginBtn").click();
+        return device.wait(Until.hasObject(res("searchEditText")), TIMEOUT_MS);
+    }
+
+    private static UiObject2 find(UiDevice device, String id) {
+        UiObject2 view = device.wait(Until.findObject(res(id)), TIMEOUT_MS);
+        if (view == null) {
+            throw new AssertionError("View " + id + " not found");
+        }
+        return view;
+    }
+
+    private static BySelector res(String id) {
+        return By.res(PACKAGE, id);
+    }
+}
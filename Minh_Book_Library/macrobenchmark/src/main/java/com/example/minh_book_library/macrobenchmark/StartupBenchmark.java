@@ -0,0 +1,105 @@
+package com.example.minh_book_library.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Cold start to the first frame, with and without the shipped baseline profile.
+// Also reports how long each StartupWarmup stage took, and the time until the
+// saved books are on screen with and without a remembered session
+// (timeToFullDisplayMs, ended by MainActivity's reportFullyDrawn()).
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupNoCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupBaselineProfile() {
+        startup(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    @Test
+    public void savedBooksWithSession() {
+        timeToSavedBooks(true);
+    }
+
+    @Test
+    public void savedBooksWithoutSession() {
+        timeToSavedBooks(false);
+    }
+
+    // Without a session the launch goes through the login screen, and the time
+    // includes typing the credentials
+    private void timeToSavedBooks(boolean rememberedSession) {
+        benchmarkRule.measureRepeated(
+                LibraryJourney.PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.Require),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait();
+                    LibraryJourney.logIn(scope.getDevice());
+                    if (!rememberedSession) {
+                        LibraryJourney.logOut(scope.getDevice());
+                    }
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    if (!rememberedSession) {
+                        LibraryJourney.logIn(scope.getDevice());
+                    }
+                    LibraryJourney.waitForSavedBooks(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                LibraryJourney.PACKAGE,
+                Arrays.asList(new StartupTimingMetric(),
+                        warmupStage("database"),
+                        warmupStage("request_queue"),
+                        warmupStage("glide"),
+                        warmupStage("saved_books")),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private static TraceSectionMetric warmupStage(String stage) {
+        String section = "warmup:" + stage;
+        return new TraceSectionMetric(section, TraceSectionMetric.Mode.First.INSTANCE, section, true);
+    }
+}
@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Minh_Book_Library"
 include(":app")
+include(":macrobenchmark")
  
\ No newline at end of file